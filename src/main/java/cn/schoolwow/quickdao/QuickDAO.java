@@ -5,12 +5,17 @@ import cn.schoolwow.quickdao.dao.DAO;
 import cn.schoolwow.quickdao.dao.DAOInvocationHandler;
 import cn.schoolwow.quickdao.domain.Database;
 import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.PagingMode;
 import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.domain.codec.TypeCodec;
 import cn.schoolwow.quickdao.domain.generator.IDGenerator;
+import cn.schoolwow.quickdao.domain.generator.IdSegment;
+import cn.schoolwow.quickdao.domain.generator.SegmentIdGenerator;
 import cn.schoolwow.quickdao.exception.SQLRuntimeException;
 import cn.schoolwow.quickdao.handler.DefaultEntityHandler;
 import cn.schoolwow.quickdao.handler.DefaultTableDefiner;
 import cn.schoolwow.quickdao.handler.TableDefiner;
+import cn.schoolwow.quickdao.mapper.DirtyTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,6 +23,7 @@ import javax.sql.DataSource;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Predicate;
 
 public class QuickDAO {
@@ -162,6 +168,7 @@ public class QuickDAO {
     /**
      * 指定id生成器接口实例
      * <p><b>当id字段策略为IdGenerator起作用</b></p>
+     * <p>使用{@link SegmentIdGenerator}时会自动注册号段分配表</p>
      * @param idGenerator id生成器实例
      * */
     public QuickDAO idGenerator(IDGenerator idGenerator) {
@@ -169,6 +176,17 @@ public class QuickDAO {
         return this;
     }
 
+    /**
+     * 注册类型转换器
+     * <p><b>须在build方法之前调用</b>,扫描实体类时根据属性类型确定转换器</p>
+     * @param type 属性类型
+     * @param typeCodec 类型转换器
+     * */
+    public <T> QuickDAO typeCodec(Class<T> type, TypeCodec<T> typeCodec) {
+        quickDAOConfig.typeCodecRegistry.register(type, typeCodec);
+        return this;
+    }
+
     /**
      * 指定全局数据库表引擎
      * @param engine 数据库表引擎
@@ -187,6 +205,92 @@ public class QuickDAO {
         return this;
     }
 
+    /**
+     * 指定分页查询总记录数获取方式
+     * @param pagingMode 总记录数获取方式
+     * */
+    public QuickDAO pagingMode(PagingMode pagingMode) {
+        quickDAOConfig.pagingMode = pagingMode;
+        return this;
+    }
+
+    /**
+     * 批量查询时是否并发查询
+     * <p>根据字段值列表查询时,值列表会按照数据库参数个数限制分段查询,开启后各分段使用不同的数据库连接并发查询</p>
+     * @param parallelFetch 是否并发查询
+     * */
+    public QuickDAO parallelFetch(boolean parallelFetch) {
+        quickDAOConfig.parallelFetch = parallelFetch;
+        return this;
+    }
+
+    /**
+     * 是否在后台线程中输出SQL日志
+     * <p>开启后SQL语句在后台线程中拼接并输出,不占用执行SQL语句的线程</p>
+     * @param asyncLog 是否在后台线程中输出
+     * */
+    public QuickDAO asyncLog(boolean asyncLog) {
+        quickDAOConfig.asyncLog = asyncLog;
+        return this;
+    }
+
+    /**
+     * 指定批量插入时每批次执行的记录数
+     * @param batchSize 每批次记录数
+     * */
+    public QuickDAO batchSize(int batchSize) {
+        if(batchSize<=0){
+            throw new IllegalArgumentException("批次记录数必须大于0!");
+        }
+        quickDAOConfig.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * 是否开启变更跟踪
+     * <p>开启后查询得到的实例会保存各字段值快照,更新该实例时只更新已变更的字段,没有字段变更时不执行更新</p>
+     * @param dirtyTracking 是否开启变更跟踪
+     * */
+    public QuickDAO dirtyTracking(boolean dirtyTracking) {
+        quickDAOConfig.dirtyTracking = dirtyTracking;
+        return this;
+    }
+
+    /**
+     * 指定异步写缓冲参数
+     * @param capacity 最多缓存的操作个数,达到上限时调用线程阻塞
+     * @param flushSize 达到该操作个数时刷新
+     * @param flushInterval 刷新间隔(毫秒)
+     * */
+    public QuickDAO writeBehind(int capacity, int flushSize, long flushInterval) {
+        if(capacity<=0||flushSize<=0||flushInterval<=0){
+            throw new IllegalArgumentException("异步写缓冲参数必须大于0!");
+        }
+        quickDAOConfig.writeBehindCapacity = capacity;
+        quickDAOConfig.writeBehindFlushSize = flushSize;
+        quickDAOConfig.writeBehindFlushInterval = flushInterval;
+        return this;
+    }
+
+    /**
+     * 指定批量操作SQL日志最多记录的条数
+     * @param maxLogBatchCount 最多记录的条数
+     * */
+    public QuickDAO maxLogBatchCount(int maxLogBatchCount) {
+        quickDAOConfig.maxLogBatchCount = maxLogBatchCount;
+        return this;
+    }
+
+    /**
+     * 指定异步任务线程池
+     * <p>未指定时使用默认的守护线程池</p>
+     * @param executorService 线程池
+     * */
+    public QuickDAO executorService(ExecutorService executorService) {
+        quickDAOConfig.executorService = executorService;
+        return this;
+    }
+
     /**自定义表和列*/
     public TableDefiner define(Class clazz) {
         if(quickDAOConfig.entityMap.isEmpty()){
@@ -210,6 +314,9 @@ public class QuickDAO {
         if(null==quickDAOConfig.database){
             throw new IllegalArgumentException("请先调用dataSource方法配置数据源!");
         }
+        if(quickDAOConfig.idGenerator instanceof SegmentIdGenerator){
+            quickDAOConfig.entityClassMap.put(IdSegment.class,"");
+        }
         //获取实体类信息
         if(quickDAOConfig.entityMap.isEmpty()){
             try {
@@ -218,6 +325,11 @@ public class QuickDAO {
                 e.printStackTrace();
             }
         }
+        if(quickDAOConfig.dirtyTracking){
+            for(Entity entity:quickDAOConfig.entityMap.values()){
+                entity.dirtyTracker = new DirtyTracker(entity);
+            }
+        }
 
         DAOInvocationHandler daoInvocationHandler = new DAOInvocationHandler(quickDAOConfig);
         DAO daoProxy = (DAO) Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(), new Class<?>[]{DAO.class},daoInvocationHandler);
@@ -225,6 +337,9 @@ public class QuickDAO {
         //自动建表和新增字段
         daoProxy.refreshDbEntityList();
         daoProxy.automaticCreateTableAndField();
+        if(quickDAOConfig.idGenerator instanceof SegmentIdGenerator){
+            ((SegmentIdGenerator) quickDAOConfig.idGenerator).init(quickDAOConfig);
+        }
         return daoProxy;
     }
 }
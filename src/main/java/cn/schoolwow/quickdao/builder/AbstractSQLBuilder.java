@@ -3,30 +3,19 @@ package cn.schoolwow.quickdao.builder;
 import cn.schoolwow.quickdao.domain.Entity;
 import cn.schoolwow.quickdao.domain.Property;
 import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.domain.SQLLog;
+import cn.schoolwow.quickdao.domain.codec.TypeCodec;
+import cn.schoolwow.quickdao.mapper.PropertyAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
-import java.lang.reflect.Field;
 import java.sql.*;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 
 public class AbstractSQLBuilder implements SQLBuilder{
     protected final static Logger logger = LoggerFactory.getLogger(AbstractSQLBuilder.class);
-    /*格式化旧版本的Date类型**/
-    private final static SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd");
-    /*格式化旧版本的Timestamp类型**/
-    private final static SimpleDateFormat simpleDateTimeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss:SSS");
-    /**格式化日期参数*/
-    private final static DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss:SSS");
-    /**格式化日期参数*/
-    private final static DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    /**SQL参数占位符*/
-    protected final static String PLACEHOLDER = "** NOT SPECIFIED **";
     /**数据库信息对象*/
     public QuickDAOConfig quickDAOConfig;
     /**数据库连接对象*/
@@ -48,12 +37,10 @@ public class AbstractSQLBuilder implements SQLBuilder{
         }
         String sql = quickDAOConfig.sqlCache.get(key);
         PreparedStatement ps = connection.prepareStatement(sql);
-        Field field = instance.getClass().getDeclaredField(entity.id.name);
-        field.setAccessible(true);
-        Object value = field.get(instance);
+        Object value = PropertyAccessor.getInstance(entity).getValue(instance, entity.id);
         ps.setObject(1,value);
         MDC.put("name","根据id查询");
-        MDC.put("sql",sql.replace("?",value==null?"":value.toString()));
+        SQLLog.set(new SQLLog(sql).addParameter(value));
         return ps;
     }
 
@@ -71,236 +58,152 @@ public class AbstractSQLBuilder implements SQLBuilder{
             quickDAOConfig.sqlCache.put(key, builder.toString());
         }
         String sql = quickDAOConfig.sqlCache.get(key);
-        StringBuilder builder = new StringBuilder(sql.replace("?", PLACEHOLDER));
+        SQLLog sqlLog = new SQLLog(sql);
         PreparedStatement ps = connection.prepareStatement(sql);
         int parameterIndex = 1;
         for(Property property:entity.uniqueKeyProperties){
-            setParameter(instance,property,ps,parameterIndex, builder);
+            setParameter(instance,property,ps,parameterIndex, sqlLog);
             parameterIndex++;
         }
         MDC.put("name","根据唯一性约束查询");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return ps;
     }
 
-    /**
-     * DQL查询操作设置参数
-     * @param parameter 参数
-     * @param ps SQL语句对象
-     * @param parameterIndex 参数索引
-     * @param sqlBuilder 用于记录sql日志
-     */
-    protected static void setParameter(Object parameter, PreparedStatement ps, int parameterIndex, StringBuilder sqlBuilder) throws SQLException {
-        if(null==parameter){
-            ps.setObject(parameterIndex,null);
-            replaceFirst(sqlBuilder,"null");
-            return;
-        }
-        String simpleTypeName = parameter.getClass().getSimpleName().toLowerCase();
-        if(parameter.getClass().isPrimitive()){
-            switch (simpleTypeName) {
-                case "boolean": {
-                    ps.setBoolean(parameterIndex, (boolean) parameter);
-                }break;
-                case "int": {
-                    ps.setInt(parameterIndex, (int) parameter);
-                }break;
-                case "float": {
-                    ps.setFloat(parameterIndex, (float) parameter);
-                }break;
-                case "long": {
-                    ps.setLong(parameterIndex, (long) parameter);
-                }break;
-                case "double": {
-                    ps.setDouble(parameterIndex, (double) parameter);
-                }break;
-            }
-        }else{
-            switch (simpleTypeName) {
-                case "string": {
-                    ps.setString(parameterIndex, (String) parameter);
-                }break;
-                case "date": {
-                    if(parameter instanceof Date){
-                        ps.setDate(parameterIndex, (Date) parameter);
-                    }else{
-                        java.util.Date d = (java.util.Date) parameter;
-                        ps.setDate(parameterIndex, new Date(d.getTime()));
+    @Override
+    public PreparedStatement selectExistByKeyList(Entity entity, List<Property> keyProperties, List<List<Object>> keyList) throws Exception {
+        //键值组数补齐到2的幂次,使同一实体只缓存少量语句
+        int maxSize = Math.max(1, quickDAOConfig.database.getMaxInParameterCount()/(keyProperties.size()*2));
+        int size = Math.min(Math.max(1, Integer.highestOneBit(keyList.size()-1)<<1), Math.max(maxSize, keyList.size()));
+        String key = "selectExistByKeyList_" + entity.clazz.getName()+"_"+size+"_"+quickDAOConfig.database.getClass().getSimpleName();
+        if (!quickDAOConfig.sqlCache.containsKey(key)) {
+            StringBuilder builder = new StringBuilder("select case ");
+            if(keyProperties.size()==1){
+                builder.append(quickDAOConfig.database.escape(keyProperties.get(0).column)+" ");
+                for(int i=0;i<size;i++){
+                    builder.append("when ? then "+i+" ");
+                }
+            }else{
+                for(int i=0;i<size;i++){
+                    builder.append("when ");
+                    for(Property property:keyProperties){
+                        builder.append(quickDAOConfig.database.escape(property.column)+" = ? and ");
                     }
-                };break;
-                case "timestamp": {
-                    ps.setTimestamp(parameterIndex, (Timestamp) parameter);
-                }break;
-                default:{
-                    ps.setObject(parameterIndex,parameter);
+                    builder.delete(builder.length()-5,builder.length());
+                    builder.append(" then "+i+" ");
                 }
             }
+            builder.append("end");
+            quickDAOConfig.sqlCache.put(key, getKeyListSQL(builder, entity, keyProperties, size));
         }
-        switch (parameter.getClass().getSimpleName().toLowerCase()) {
-            case "boolean": {
-                Boolean bool = Boolean.parseBoolean(parameter.toString());
-                replaceFirst(sqlBuilder,bool?"1":"0");
-            }break;
-            case "int": {}
-            case "integer":{}
-            case "float":{}
-            case "long": {}
-            case "double": {
-                replaceFirst(sqlBuilder,parameter.toString());
-            }break;
-            case "string": {
-                replaceFirst(sqlBuilder,"'"+parameter.toString()+"'");
-            }break;
-            case "date": {
-                java.util.Date date = (java.util.Date) parameter;
-                LocalDate localDate = LocalDate.of(date.getYear()+1900,date.getMonth(),date.getDay());
-                replaceFirst(sqlBuilder,"'"+dateFormatter.format(localDate)+"'");
-            }break;
-            case "timestamp": {
-                java.util.Date date = (java.util.Date) parameter;
-                LocalDateTime localDateTime = LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
-                replaceFirst(sqlBuilder,"'"+dateTimeFormatter.format(localDateTime)+"'");
-            }break;
-            case "localdate": {
-                LocalDate localDate = (LocalDate) parameter;
-                replaceFirst(sqlBuilder,"'"+dateFormatter.format(localDate)+"'");
-            }break;
-            case "localdatetime": {
-                LocalDateTime localDateTime = (LocalDateTime) parameter;
-                replaceFirst(sqlBuilder,"'"+dateTimeFormatter.format(localDateTime)+"'");
-            }break;
-            default: {
-                replaceFirst(sqlBuilder,parameter.toString());
-            }
+        List<List<Object>> parameterList = new ArrayList<>(size*2);
+        parameterList.addAll(keyList);
+        while(parameterList.size()<size){
+            parameterList.add(keyList.get(keyList.size()-1));
+        }
+        parameterList.addAll(new ArrayList<>(parameterList));
+        MDC.put("name","批量查询记录是否存在");
+        return prepareKeyList(quickDAOConfig.sqlCache.get(key), keyProperties, parameterList);
+    }
+
+    @Override
+    public PreparedStatement selectCountByKeyList(Entity entity, List<Property> keyProperties, List<List<Object>> keyList) throws Exception {
+        String key = "selectCountByKeyList_" + entity.clazz.getName()+"_"+keyList.size()+"_"+quickDAOConfig.database.getClass().getSimpleName();
+        if (!quickDAOConfig.sqlCache.containsKey(key)) {
+            StringBuilder builder = new StringBuilder("select count(1)");
+            quickDAOConfig.sqlCache.put(key, getKeyListSQL(builder, entity, keyProperties, keyList.size()));
         }
+        MDC.put("name","批量查询已存在记录条数");
+        return prepareKeyList(quickDAOConfig.sqlCache.get(key), keyProperties, keyList);
     }
 
     /**
-     * DML操作设置参数
+     * 拼接多组键值查询条件,单列键值使用in查询,多列键值使用or连接
+     * @param builder 查询列
+     * @param entity 实体类信息
+     * @param keyProperties 键值属性
+     * @param size 键值组数
      */
-    protected static void setParameter(Object instance, Property property, PreparedStatement ps, int parameterIndex, StringBuilder sqlBuilder) throws Exception{
-        Class tempClass = instance.getClass();
-        Field field = null;
-        while(null==field&&null!=tempClass){
-            Field[] fields = tempClass.getDeclaredFields();
-            for(Field field1:fields){
-                if(field1.getName().equals(property.name)){
-                    field = field1;
-                    break;
+    private String getKeyListSQL(StringBuilder builder, Entity entity, List<Property> keyProperties, int size) {
+        builder.append(" from " + entity.escapeTableName + " where ");
+        if(keyProperties.size()==1){
+            builder.append(quickDAOConfig.database.escape(keyProperties.get(0).column)+" in (");
+            for(int i=0;i<size;i++){
+                builder.append("?,");
+            }
+            builder.setCharAt(builder.length()-1,')');
+        }else{
+            for(int i=0;i<size;i++){
+                builder.append("(");
+                for(Property property:keyProperties){
+                    builder.append(quickDAOConfig.database.escape(property.column)+" = ? and ");
                 }
+                builder.delete(builder.length()-5,builder.length());
+                builder.append(") or ");
             }
-            tempClass = tempClass.getSuperclass();
-        }
-        if(null==field){
-            throw new IllegalArgumentException("字段不存在!字段名:"+property.name+",类名:"+instance.getClass().getName());
+            builder.delete(builder.length()-4,builder.length());
         }
-        field.setAccessible(true);
-        String parameter = null;
-        switch (property.simpleTypeName) {
-            case "boolean": {
-                if (field.getType().isPrimitive()) {
-                    ps.setBoolean(parameterIndex, field.getBoolean(instance));
-                    parameter = "" + field.getBoolean(instance);
-                } else {
-                    ps.setObject(parameterIndex, field.get(instance));
-                    parameter = "" + field.get(instance);
-                }
-            }break;
-            case "int": {
-                ps.setInt(parameterIndex, field.getInt(instance));
-                parameter = "" + field.getInt(instance);
-            }break;
-            case "integer": {
-                ps.setObject(parameterIndex, field.get(instance));
-                parameter = "" + field.get(instance);
-            }break;
-            case "float": {
-                if (field.getType().isPrimitive()) {
-                    ps.setFloat(parameterIndex, field.getFloat(instance));
-                    parameter = "" + field.getFloat(instance);
-                } else {
-                    ps.setObject(parameterIndex, field.get(instance));
-                    parameter = "" + field.get(instance);
-                }
-            }break;
-            case "long": {
-                if (field.getType().isPrimitive()) {
-                    ps.setLong(parameterIndex, field.getLong(instance));
-                    parameter = "" + field.getLong(instance);
-                } else {
-                    ps.setObject(parameterIndex, field.get(instance));
-                    parameter = "" + field.get(instance);
-                }
-            }break;
-            case "double": {
-                if (field.getType().isPrimitive()) {
-                    ps.setDouble(parameterIndex, field.getDouble(instance));
-                    parameter = "" + field.getDouble(instance);
-                } else {
-                    ps.setObject(parameterIndex, field.get(instance));
-                    parameter = "" + field.get(instance);
-                }
-            }break;
-            case "string": {
-                ps.setString(parameterIndex, field.get(instance) == null ? null : field.get(instance).toString());
-                parameter = "'" + (field.get(instance) == null ? "" : field.get(instance).toString()) + "'";
-            }break;
-            case "date": {};
-            case "timestamp": {
-                Object o = field.get(instance);
-                if (null==o) {
-                    ps.setObject(parameterIndex, null);
-                    parameter = "null";
-                } else{
-                    java.util.Date date = (java.util.Date) o;
-                    ps.setTimestamp(parameterIndex, new Timestamp(date.getTime()));
-                    if("date".equals(property.simpleTypeName)){
-                        synchronized (simpleDateFormat){
-                            parameter = "'"+simpleDateFormat.format(date)+"'";
-                        }
-                    }
-                    if("timestamp".equals(property.simpleTypeName)){
-                        synchronized (simpleDateTimeFormat){
-                            parameter = "'"+simpleDateTimeFormat.format(date)+"'";
-                        }
-                    }
-                }
-            }break;
-            case "localdate": {
-                Object o = field.get(instance);
-                if(null==o){
-                    ps.setObject(parameterIndex, null);
-                    parameter = "null";
-                }else{
-                    ps.setObject(parameterIndex, o);
-                    LocalDate localDate = (LocalDate) o;
-                    parameter = "'"+dateFormatter.format(localDate)+"'";
-                }
-            }break;
-            case "localdatetime": {
-                Object o = field.get(instance);
-                if(null==o){
-                    ps.setObject(parameterIndex, null);
-                    parameter = "null";
+        return builder.toString();
+    }
+
+    /**
+     * 设置多组键值查询参数
+     * @param sql SQL语句
+     * @param keyProperties 键值属性
+     * @param keyList 键值列表
+     */
+    private PreparedStatement prepareKeyList(String sql, List<Property> keyProperties, List<List<Object>> keyList) throws SQLException {
+        SQLLog sqlLog = new SQLLog(sql);
+        PreparedStatement ps = connection.prepareStatement(sql);
+        int parameterIndex = 1;
+        for(List<Object> values:keyList){
+            for(int i=0;i<keyProperties.size();i++){
+                Property property = keyProperties.get(i);
+                Object value = values.get(i);
+                sqlLog.addParameter(value);
+                if(null==property.typeCodec){
+                    ps.setObject(parameterIndex, value);
                 }else{
-                    ps.setObject(parameterIndex, o);
-                    LocalDateTime localDate = (LocalDateTime) o;
-                    parameter = "'"+dateTimeFormatter.format(localDate)+"'";
+                    property.typeCodec.bind(ps, parameterIndex, value);
                 }
-            }break;
-            default: {
-                ps.setObject(parameterIndex, field.get(instance));
-                parameter = "'" + field.get(instance) + "'";
+                parameterIndex++;
             }
         }
-        replaceFirst(sqlBuilder,parameter);
+        SQLLog.set(sqlLog);
+        return ps;
     }
 
-    /**替换SQL语句的第一个占位符*/
-    protected static void replaceFirst(StringBuilder sqlBuilder,String parameter){
-        int indexOf = sqlBuilder.indexOf(PLACEHOLDER);
-        if (indexOf >= 0) {
-            sqlBuilder.replace(indexOf, indexOf + PLACEHOLDER.length(), parameter);
+    /**
+     * DQL查询操作设置参数
+     * @param parameter 参数
+     * @param ps SQL语句对象
+     * @param parameterIndex 参数索引
+     * @param sqlLog 用于记录sql日志
+     */
+    protected void setParameter(Object parameter, PreparedStatement ps, int parameterIndex, SQLLog sqlLog) throws SQLException {
+        sqlLog.addParameter(parameter);
+        if(null==parameter){
+            ps.setObject(parameterIndex,null);
+            return;
+        }
+        TypeCodec typeCodec = quickDAOConfig.typeCodecRegistry.getTypeCodec(parameter.getClass());
+        if(null==typeCodec){
+            ps.setObject(parameterIndex,parameter);
+        }else{
+            typeCodec.bind(ps,parameterIndex,parameter);
+        }
+    }
+
+    /**
+     * DML操作设置参数
+     */
+    protected static void setParameter(Object instance, Property property, PreparedStatement ps, int parameterIndex, SQLLog sqlLog) throws Exception{
+        Object value = PropertyAccessor.getInstance(property.entity).getValue(instance, property);
+        sqlLog.addParameter(value);
+        if(null==property.typeCodec){
+            ps.setObject(parameterIndex, value);
+        }else{
+            property.typeCodec.bind(ps, parameterIndex, value);
         }
     }
 }
@@ -1,6 +1,10 @@
 package cn.schoolwow.quickdao.builder;
 
+import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.Property;
+
 import java.sql.PreparedStatement;
+import java.util.List;
 
 /**公共SQLBuilder*/
 public interface SQLBuilder {
@@ -8,4 +12,20 @@ public interface SQLBuilder {
     PreparedStatement selectCountById(Object instance) throws Exception;
     /**根据唯一性约束查询*/
     PreparedStatement selectCountByUniqueKey(Object instance) throws Exception;
+    /**
+     * 根据多组键值查询记录是否存在
+     * <p>每条已存在记录返回一行,结果为其匹配的键值下标.键值比较由数据库完成,与列类型和排序规则一致</p>
+     * <p>键值组数补齐到2的幂次,补齐的键值重复最后一组键值</p>
+     * @param entity 实体类信息
+     * @param keyProperties 键值属性,唯一性约束或者id
+     * @param keyList 键值列表,键值内各值顺序与键值属性一致
+     */
+    PreparedStatement selectExistByKeyList(Entity entity, List<Property> keyProperties, List<List<Object>> keyList) throws Exception;
+    /**
+     * 根据多组键值查询已存在记录的条数
+     * @param entity 实体类信息
+     * @param keyProperties 键值属性,唯一性约束或者id
+     * @param keyList 键值列表,键值内各值顺序与键值属性一致
+     */
+    PreparedStatement selectCountByKeyList(Entity entity, List<Property> keyProperties, List<List<Object>> keyList) throws Exception;
 }
@@ -39,6 +39,10 @@ public abstract class AbstractDDLBuilder extends AbstractSQLBuilder implements D
         fieldMapping.put("localdate", "date");
         fieldMapping.put("localdatetime", "datetime");
         fieldMapping.put("timestamp", "timestamp");
+        fieldMapping.put("bigdecimal", "decimal(19,4)");
+        fieldMapping.put("enum", "varchar(64)");
+        fieldMapping.put("uuid", "varchar(36)");
+        fieldMapping.put("bytes", "blob");
     }
 
     public String getDatabaseName() throws SQLException{
@@ -173,6 +177,13 @@ public abstract class AbstractDDLBuilder extends AbstractSQLBuilder implements D
         connection.prepareStatement(MDC.get("sql")).executeUpdate();
     }
 
+    @Override
+    public void analyze(Entity entity) throws SQLException{
+        MDC.put("name","更新表统计信息");
+        MDC.put("sql","analyze table "+entity.escapeTableName);
+        connection.prepareStatement(MDC.get("sql")).execute();
+    }
+
     @Override
     public void createForeignKey(Property property) throws SQLException{
         String operation = property.foreignKey.foreignKeyOption().getOperation();
@@ -197,7 +208,11 @@ public abstract class AbstractDDLBuilder extends AbstractSQLBuilder implements D
         for (Entity entity : entityList) {
             for(Property property:entity.properties){
                 if(null==property.columnType||property.columnType.isEmpty()){
-                    property.columnType = fieldMapping.get(property.simpleTypeName);
+                    if(null!=property.typeCodec&&null!=property.typeCodec.getFieldMappingName()){
+                        property.columnType = fieldMapping.get(property.typeCodec.getFieldMappingName());
+                    }else{
+                        property.columnType = fieldMapping.get(property.simpleTypeName);
+                    }
                 }
                 if(null!=property.check&&!property.check.isEmpty()){
                     property.check = property.check.replace("#{"+property.name+"}",quickDAOConfig.database.escape(property.column));
@@ -258,6 +273,7 @@ public abstract class AbstractDDLBuilder extends AbstractSQLBuilder implements D
             }
         }
         quickDAOConfig.dbEntityList = dbEntityList;
+        quickDAOConfig.resultPlanCache.clear();
     }
 
     /**获取虚拟表信息*/
@@ -277,7 +293,7 @@ public abstract class AbstractDDLBuilder extends AbstractSQLBuilder implements D
      * @param entity 表信息
      * @param indexType 索引类型
      * */
-    protected abstract boolean hasIndexExists(Entity entity, IndexType indexType) throws SQLException;
+    public abstract boolean hasIndexExists(Entity entity, IndexType indexType) throws SQLException;
 
     /**
      * 获取建表语句
@@ -31,6 +31,10 @@ public interface DDLBuilder {
     void createIndex(Entity entity, IndexType indexType) throws SQLException;
     /**删除索引*/
     void dropIndex(Entity entity, IndexType indexType) throws SQLException;
+    /**判断索引是否存在*/
+    boolean hasIndexExists(Entity entity, IndexType indexType) throws SQLException;
+    /**更新表统计信息*/
+    void analyze(Entity entity) throws SQLException;
     /**建立外键约束*/
     void createForeignKey(Property property) throws SQLException;
     /**自动建表和新增字段*/
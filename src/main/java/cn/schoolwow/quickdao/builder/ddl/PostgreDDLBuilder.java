@@ -23,6 +23,7 @@ public class PostgreDDLBuilder extends AbstractDDLBuilder {
         fieldMapping.put("localdatetime", "timestamp");
         fieldMapping.put("float", "real");
         fieldMapping.put("double", "double precision");
+        fieldMapping.put("bytes", "bytea");
     }
 
     @Override
@@ -108,4 +109,11 @@ public class PostgreDDLBuilder extends AbstractDDLBuilder {
         resultSet.close();
         return result;
     }
+
+    @Override
+    public void analyze(Entity entity) throws SQLException{
+        MDC.put("name","更新表统计信息");
+        MDC.put("sql","analyze "+entity.escapeTableName);
+        connection.prepareStatement(MDC.get("sql")).execute();
+    }
 }
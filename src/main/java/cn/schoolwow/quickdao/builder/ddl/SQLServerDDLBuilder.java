@@ -20,6 +20,7 @@ public class SQLServerDDLBuilder extends AbstractDDLBuilder {
         fieldMapping.put("float", "float(24)");
         fieldMapping.put("double", "float(53)");
         fieldMapping.put("date", "datetime");
+        fieldMapping.put("bytes", "varbinary(max)");
     }
 
     @Override
@@ -86,4 +87,11 @@ public class SQLServerDDLBuilder extends AbstractDDLBuilder {
         resultSet.close();
         return result;
     }
+
+    @Override
+    public void analyze(Entity entity) throws SQLException{
+        MDC.put("name","更新表统计信息");
+        MDC.put("sql","update statistics "+entity.escapeTableName);
+        connection.prepareStatement(MDC.get("sql")).execute();
+    }
 }
@@ -97,4 +97,11 @@ public class SQLiteDDLBuilder extends AbstractDDLBuilder {
         resultSet.close();
         return result;
     }
+
+    @Override
+    public void analyze(Entity entity) throws SQLException{
+        MDC.put("name","更新表统计信息");
+        MDC.put("sql","analyze "+entity.escapeTableName);
+        connection.prepareStatement(MDC.get("sql")).execute();
+    }
 }
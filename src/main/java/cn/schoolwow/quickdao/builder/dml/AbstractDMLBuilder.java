@@ -2,18 +2,25 @@ package cn.schoolwow.quickdao.builder.dml;
 
 import cn.schoolwow.quickdao.annotation.IdStrategy;
 import cn.schoolwow.quickdao.builder.AbstractSQLBuilder;
+import cn.schoolwow.quickdao.domain.Database;
 import cn.schoolwow.quickdao.domain.Entity;
 import cn.schoolwow.quickdao.domain.Property;
 import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.domain.SQLLog;
+import cn.schoolwow.quickdao.mapper.DirtyTracker;
+import cn.schoolwow.quickdao.mapper.PropertyAccessor;
 import org.slf4j.MDC;
 
-import java.lang.reflect.Field;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
 
 public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilder {
 
@@ -24,11 +31,11 @@ public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilde
     @Override
     public PreparedStatement insert(Object instance) throws Exception {
         String sql = insert(instance.getClass());
-        StringBuilder builder = new StringBuilder(sql.replace("?", PLACEHOLDER));
+        SQLLog sqlLog = new SQLLog(sql);
         PreparedStatement ps = connection.prepareStatement(sql,PreparedStatement.RETURN_GENERATED_KEYS);
-        insert(ps,instance, builder);
+        insert(ps,instance, sqlLog);
         MDC.put("name","插入对象");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return ps;
     }
 
@@ -37,89 +44,144 @@ public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilde
         String sql = insert(instances[0].getClass());
         connection.setAutoCommit(false);
         PreparedStatement[] preparedStatements = new PreparedStatement[instances.length];
-        StringBuilder builder = new StringBuilder();
+        SQLLog sqlLog = new SQLLog(sql, quickDAOConfig.maxLogBatchCount);
         for(int i=0;i<instances.length;i++){
             PreparedStatement ps = connection.prepareStatement(sql,PreparedStatement.RETURN_GENERATED_KEYS);
-            StringBuilder sqlBuilder = new StringBuilder(sql.replace("?", PLACEHOLDER));
-            insert(ps,instances[i],sqlBuilder);
-            builder.append(sqlBuilder.toString()+";");
+            insert(ps,instances[i],sqlLog);
+            sqlLog.addBatch();
             preparedStatements[i] = ps;
         }
         MDC.put("name","批量插入对象");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return preparedStatements;
     }
 
     @Override
     public PreparedStatement insertBatch(Object[] instances) throws Exception {
-        String sql = insert(instances[0].getClass());
         connection.setAutoCommit(false);
-        PreparedStatement ps = connection.prepareStatement(sql);
-        StringBuilder builder = new StringBuilder();
-        for(Object instance : instances){
-            StringBuilder sqlBuilder = new StringBuilder(sql.replace("?", PLACEHOLDER));
-            insert(ps,instance,sqlBuilder);
-            builder.append(sqlBuilder.toString()+";");
+        return insertBatch(instances, 0, instances.length, false);
+    }
+
+    @Override
+    public PreparedStatement insertBatch(Object[] instances, int from, int to, boolean returnGeneratedKeys) throws Exception {
+        String sql = insert(instances[from].getClass());
+        PreparedStatement ps = returnGeneratedKeys?connection.prepareStatement(sql,PreparedStatement.RETURN_GENERATED_KEYS):connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql, quickDAOConfig.maxLogBatchCount);
+        for(int i=from;i<to;i++){
+            insert(ps,instances[i],sqlLog);
+            sqlLog.addBatch();
             ps.addBatch();
         }
         MDC.put("name","批量插入对象");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
+        return ps;
+    }
+
+    @Override
+    public PreparedStatement insertMultiValues(Object[] instances, int from, int to, boolean returnGeneratedKeys) throws Exception {
+        String sql = insertMultiValues(instances[from].getClass(), to-from);
+        PreparedStatement ps = returnGeneratedKeys?connection.prepareStatement(sql,PreparedStatement.RETURN_GENERATED_KEYS):connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
+        int parameterIndex = 1;
+        for(int i=from;i<to;i++){
+            parameterIndex = insert(ps,instances[i],parameterIndex,sqlLog);
+        }
+        MDC.put("name","多行插入对象");
+        SQLLog.set(sqlLog);
+        return ps;
+    }
+
+    @Override
+    public PreparedStatement upsert(Object[] instances, int from, int to, boolean ignore) throws Exception {
+        String sql = upsert(instances[from].getClass(), ignore);
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql, quickDAOConfig.maxLogBatchCount);
+        //H2的where not exists子查询需要再次设置唯一键参数
+        List<Property> keyProperties = ignore&&Database.H2.equals(quickDAOConfig.database)?getConflictKeyProperties(quickDAOConfig.getEntityByClassName(instances[from].getClass().getName())):Collections.emptyList();
+        for(int i=from;i<to;i++){
+            int parameterIndex = insert(ps,instances[i],1,sqlLog);
+            for(Property property:keyProperties){
+                setParameter(instances[i], property, ps, parameterIndex++, sqlLog);
+            }
+            sqlLog.addBatch();
+            ps.addBatch();
+        }
+        MDC.put("name",ignore?"插入对象(忽略已存在记录)":"插入或更新对象");
+        SQLLog.set(sqlLog);
         return ps;
     }
 
     @Override
     public PreparedStatement updateByUniqueKey(Object instance) throws Exception{
-        String sql = updateByUniqueKey(instance.getClass());
-        StringBuilder builder = new StringBuilder(sql.replace("?", PLACEHOLDER));
+        return updateByUniqueKey(instance, null);
+    }
+
+    @Override
+    public PreparedStatement updateByUniqueKey(Object instance, BitSet dirtyMask) throws Exception{
+        String sql = updateByUniqueKey(instance.getClass(), dirtyMask);
+        SQLLog sqlLog = new SQLLog(sql);
         PreparedStatement ps = connection.prepareStatement(sql);
-        updateByUniqueKey(ps,instance, builder);
+        updateByUniqueKey(ps,instance,dirtyMask,sqlLog);
         MDC.put("name","根据唯一性约束更新对象");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return ps;
     }
 
     @Override
     public PreparedStatement updateByUniqueKey(Object[] instances) throws Exception {
-        String sql = updateByUniqueKey(instances[0].getClass());
+        return updateByUniqueKey(instances, null);
+    }
+
+    @Override
+    public PreparedStatement updateByUniqueKey(Object[] instances, BitSet dirtyMask) throws Exception {
+        String sql = updateByUniqueKey(instances[0].getClass(), dirtyMask);
         connection.setAutoCommit(false);
         PreparedStatement ps = connection.prepareStatement(sql);
-        StringBuilder builder = new StringBuilder();
+        SQLLog sqlLog = new SQLLog(sql, quickDAOConfig.maxLogBatchCount);
         for(Object instance : instances){
-            StringBuilder sqlBuilder = new StringBuilder(sql.replace("?", PLACEHOLDER));
-            updateByUniqueKey(ps,instance,sqlBuilder);
-            builder.append(sqlBuilder.toString()+";");
+            updateByUniqueKey(ps,instance,dirtyMask,sqlLog);
+            sqlLog.addBatch();
             ps.addBatch();
         }
         MDC.put("name","根据唯一性约束批量更新对象");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return ps;
     }
 
     @Override
     public PreparedStatement updateById(Object instance) throws Exception {
-        String sql = updateById(instance.getClass());
-        StringBuilder builder = new StringBuilder(sql.replace("?", PLACEHOLDER));
+        return updateById(instance, null);
+    }
+
+    @Override
+    public PreparedStatement updateById(Object instance, BitSet dirtyMask) throws Exception {
+        String sql = updateById(instance.getClass(), dirtyMask);
+        SQLLog sqlLog = new SQLLog(sql);
         PreparedStatement ps = connection.prepareStatement(sql);
-        updateById(ps,instance, builder);
+        updateById(ps,instance,dirtyMask,sqlLog);
         MDC.put("name","根据ID更新对象");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return ps;
     }
 
     @Override
     public PreparedStatement updateById(Object[] instances) throws Exception {
-        String sql = updateById(instances[0].getClass());
+        return updateById(instances, null);
+    }
+
+    @Override
+    public PreparedStatement updateById(Object[] instances, BitSet dirtyMask) throws Exception {
+        String sql = updateById(instances[0].getClass(), dirtyMask);
         connection.setAutoCommit(false);
         PreparedStatement ps = connection.prepareStatement(sql);
-        StringBuilder builder = new StringBuilder();
+        SQLLog sqlLog = new SQLLog(sql, quickDAOConfig.maxLogBatchCount);
         for(Object instance : instances){
-            StringBuilder sqlBuilder = new StringBuilder(sql.replace("?", PLACEHOLDER));
-            updateById(ps,instance,sqlBuilder);
-            builder.append(sqlBuilder.toString()+";");
+            updateById(ps,instance,dirtyMask,sqlLog);
+            sqlLog.addBatch();
             ps.addBatch();
         }
         MDC.put("name","根据ID批量更新对象");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return ps;
     }
 
@@ -136,7 +198,33 @@ public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilde
         PreparedStatement ps = connection.prepareStatement(sql);
         ps.setObject(1, value);
         MDC.put("name","根据单个字段删除");
-        MDC.put("sql",sql.replace("?",(value instanceof String)?"'"+value.toString()+"'":value.toString()));
+        SQLLog.set(new SQLLog(sql).addParameter(value));
+        return ps;
+    }
+
+    @Override
+    public PreparedStatement deleteInByProperty(Class clazz, String property, List values) throws SQLException {
+        String key = "deleteInByProperty_" + clazz.getName()+"_"+property+"_"+values.size()+"_"+quickDAOConfig.database.getClass().getSimpleName();
+        if (!quickDAOConfig.sqlCache.containsKey(key)) {
+            Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
+            Property field = entity.getPropertyByFieldName(property);
+            String placeholder = null==field||null==field.function?"?":field.function;
+            StringBuilder builder = new StringBuilder();
+            builder.append("delete from " + entity.escapeTableName + " where " + quickDAOConfig.database.escape(entity.getColumnNameByFieldName(property)) + " in (");
+            for(int i=0;i<values.size();i++){
+                builder.append(placeholder+",");
+            }
+            builder.setCharAt(builder.length()-1,')');
+            quickDAOConfig.sqlCache.put(key, builder.toString());
+        }
+        String sql = quickDAOConfig.sqlCache.get(key);
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
+        for(int i=0;i<values.size();i++){
+            setParameter(values.get(i),ps,i+1,sqlLog);
+        }
+        MDC.put("name","根据字段值列表删除");
+        SQLLog.set(sqlLog);
         return ps;
     }
 
@@ -146,7 +234,7 @@ public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilde
         PreparedStatement ps = connection.prepareStatement(sql);
         ps.setObject(1, value);
         MDC.put("name","根据单个字段删除");
-        MDC.put("sql",sql.replace("?",(value instanceof String)?"'"+value.toString()+"'":value.toString()));
+        SQLLog.set(new SQLLog(sql).addParameter(value));
         return ps;
     }
 
@@ -161,6 +249,27 @@ public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilde
         return preparedStatement;
     }
 
+    @Override
+    public PreparedStatement truncate(Class clazz) throws SQLException {
+        String key = "truncate_" + clazz.getName()+"_"+quickDAOConfig.database.getClass().getSimpleName();
+        if (!quickDAOConfig.sqlCache.containsKey(key)) {
+            Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
+            switch (quickDAOConfig.database){
+                case SQLite:{
+                    quickDAOConfig.sqlCache.put(key, "delete from "+entity.escapeTableName);
+                }break;
+                default:{
+                    quickDAOConfig.sqlCache.put(key, "truncate table "+entity.escapeTableName);
+                }
+            }
+        }
+        String sql = quickDAOConfig.sqlCache.get(key);
+        PreparedStatement preparedStatement = connection.prepareStatement(sql);
+        MDC.put("name","截断表");
+        SQLLog.set(new SQLLog(sql));
+        return preparedStatement;
+    }
+
     /**
      * 获取插入语句
      * @param clazz 实体类对象
@@ -192,69 +301,217 @@ public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilde
         return quickDAOConfig.sqlCache.get(key);
     }
 
+    /**
+     * 获取多行values插入语句
+     * @param clazz 实体类对象
+     * @param rows 行数
+     * */
+    private String insertMultiValues(Class clazz, int rows){
+        String key = "insertMultiValues_" + clazz.getName()+"_"+rows+"_"+quickDAOConfig.database.getClass().getSimpleName();
+        if (!quickDAOConfig.sqlCache.containsKey(key)) {
+            String sql = insert(clazz);
+            int valuesIndex = sql.indexOf(") values(")+8;
+            String row = sql.substring(valuesIndex);
+            StringBuilder builder = new StringBuilder(sql.length() + (row.length()+1)*rows);
+            builder.append(sql, 0, valuesIndex);
+            for(int i=0;i<rows;i++){
+                builder.append(row+",");
+            }
+            builder.deleteCharAt(builder.length() - 1);
+            quickDAOConfig.sqlCache.put(key, builder.toString());
+        }
+        return quickDAOConfig.sqlCache.get(key);
+    }
+
+    /**
+     * 获取插入或更新语句
+     * @param clazz 实体类对象
+     * @param ignore 记录已存在时是否忽略
+     * */
+    private String upsert(Class clazz, boolean ignore){
+        String key = (ignore?"insertIgnore_":"upsert_") + clazz.getName()+"_"+quickDAOConfig.database.getClass().getSimpleName();
+        if (!quickDAOConfig.sqlCache.containsKey(key)) {
+            Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
+            List<Property> keyProperties = getConflictKeyProperties(entity);
+            //冲突时更新的字段,不更新id,唯一键和创建时间
+            List<Property> updateProperties = new ArrayList<>();
+            for (Property property : entity.properties) {
+                if (property.id || property.createdAt || keyProperties.contains(property)) {
+                    continue;
+                }
+                updateProperties.add(property);
+            }
+            String sql = insert(clazz);
+            int valuesIndex = sql.indexOf(") values(")+1;
+            StringBuilder keyBuilder = new StringBuilder();
+            for (Property property : keyProperties) {
+                keyBuilder.append(quickDAOConfig.database.escape(property.column) + ",");
+            }
+            keyBuilder.deleteCharAt(keyBuilder.length() - 1);
+            StringBuilder builder = new StringBuilder();
+            switch (quickDAOConfig.database){
+                case Mysql:{
+                    if(ignore||updateProperties.isEmpty()){
+                        builder.append("insert ignore" + sql.substring(6));
+                    }else{
+                        builder.append(sql + " on duplicate key update ");
+                        for (Property property : updateProperties) {
+                            String column = quickDAOConfig.database.escape(property.column);
+                            builder.append(column + " = values(" + column + "),");
+                        }
+                        builder.deleteCharAt(builder.length() - 1);
+                    }
+                }break;
+                case H2:{
+                    if(ignore){
+                        builder.append(sql, 0, valuesIndex);
+                        builder.append(" select " + sql.substring(valuesIndex + 8, sql.length() - 1));
+                        builder.append(" where not exists(select 1 from " + entity.escapeTableName + " where ");
+                        for (Property property : keyProperties) {
+                            builder.append(quickDAOConfig.database.escape(property.column) + " = " + (null==property.function?"?":property.function) + " and ");
+                        }
+                        builder.delete(builder.length() - 5, builder.length());
+                        builder.append(")");
+                    }else{
+                        appendMergeUsing(builder, entity, keyProperties, updateProperties, false);
+                    }
+                }break;
+                case SQLServer:{
+                    appendMergeUsing(builder, entity, keyProperties, ignore?Collections.emptyList():updateProperties, true);
+                }break;
+                default:{
+                    builder.append(sql + " on conflict(" + keyBuilder + ") do ");
+                    if(ignore||updateProperties.isEmpty()){
+                        builder.append("nothing");
+                    }else{
+                        builder.append("update set ");
+                        for (Property property : updateProperties) {
+                            String column = quickDAOConfig.database.escape(property.column);
+                            builder.append(column + " = excluded." + column + ",");
+                        }
+                        builder.deleteCharAt(builder.length() - 1);
+                    }
+                }break;
+            }
+            quickDAOConfig.sqlCache.put(key, builder.toString());
+        }
+        return quickDAOConfig.sqlCache.get(key);
+    }
+
+    /**
+     * 拼接merge into ... using语句,记录存在时只更新updateProperties中的字段
+     * @param builder 语句
+     * @param entity 实体类信息
+     * @param keyProperties 判断冲突的字段
+     * @param updateProperties 记录存在时更新的字段,为空时不更新
+     * @param sqlServer 是否为SQLServer语法
+     * */
+    private void appendMergeUsing(StringBuilder builder, Entity entity, List<Property> keyProperties, List<Property> updateProperties, boolean sqlServer){
+        builder.append("merge into " + entity.escapeTableName + (sqlServer?" with(holdlock)":"") + " as t using (select ");
+        StringBuilder columnBuilder = new StringBuilder();
+        StringBuilder sourceBuilder = new StringBuilder();
+        for (Property property : entity.properties) {
+            if (property.id&&property.strategy== IdStrategy.AutoIncrement) {
+                continue;
+            }
+            String column = quickDAOConfig.database.escape(property.column);
+            builder.append((null==property.function?"?":property.function) + " as " + column + ",");
+            columnBuilder.append(column + ",");
+            sourceBuilder.append("s." + column + ",");
+        }
+        builder.deleteCharAt(builder.length() - 1);
+        columnBuilder.deleteCharAt(columnBuilder.length() - 1);
+        sourceBuilder.deleteCharAt(sourceBuilder.length() - 1);
+        builder.append(") as s on (");
+        for (Property property : keyProperties) {
+            String column = quickDAOConfig.database.escape(property.column);
+            builder.append("t." + column + " = s." + column + " and ");
+        }
+        builder.delete(builder.length() - 5, builder.length());
+        builder.append(")");
+        if(!updateProperties.isEmpty()){
+            builder.append(" when matched then update set ");
+            for (Property property : updateProperties) {
+                String column = quickDAOConfig.database.escape(property.column);
+                builder.append((sqlServer?"t.":"") + column + " = s." + column + ",");
+            }
+            builder.deleteCharAt(builder.length() - 1);
+        }
+        builder.append(" when not matched then insert(" + columnBuilder + ") values(" + sourceBuilder + ")" + (sqlServer?";":""));
+    }
+
+    /**
+     * 获取判断冲突的字段,优先使用唯一性约束,其次使用非自增id
+     * @param entity 实体类信息
+     * */
+    private List<Property> getConflictKeyProperties(Entity entity){
+        if(null!=entity.uniqueKeyProperties&&entity.uniqueKeyProperties.size()>0){
+            return entity.uniqueKeyProperties;
+        }
+        if(null!=entity.id&&entity.id.strategy!=IdStrategy.AutoIncrement){
+            return Collections.singletonList(entity.id);
+        }
+        throw new IllegalArgumentException("该实例无唯一性约束且id为自增,无法判断记录是否冲突!类名:"+entity.clazz.getName());
+    }
+
     /**
      * 设置插入参数值
      * @param preparedStatement SQL语句
      * @param instance 实例对象
-     * @param sqlBuilder sql日志
+     * @param sqlLog sql日志
      * */
-    private void insert(PreparedStatement preparedStatement,Object instance, StringBuilder sqlBuilder) throws Exception {
-        int parameterIndex = 1;
+    private void insert(PreparedStatement preparedStatement,Object instance, SQLLog sqlLog) throws Exception {
+        insert(preparedStatement, instance, 1, sqlLog);
+    }
+
+    /**
+     * 设置插入参数值
+     * @param preparedStatement SQL语句
+     * @param instance 实例对象
+     * @param parameterIndex 起始参数索引
+     * @param sqlLog sql日志
+     * @return 下一个参数索引
+     * */
+    private int insert(PreparedStatement preparedStatement,Object instance, int parameterIndex, SQLLog sqlLog) throws Exception {
         Entity entity = quickDAOConfig.getEntityByClassName(instance.getClass().getName());
         for (Property property : entity.properties) {
             if (property.id&&property.strategy== IdStrategy.AutoIncrement) {
                 continue;
             }
             if(property.id&&property.strategy== IdStrategy.IdGenerator){
-                Field idField = instance.getClass().getDeclaredField(property.name);
-                idField.setAccessible(true);
-                long value = quickDAOConfig.idGenerator.getNextId();
-                switch(idField.getType().getSimpleName().toLowerCase()){
-                    case "int":
-                    case "integer":{
-                        if(idField.getType().isPrimitive()){
-                            idField.setInt(instance, (int) value);
-                        }else{
-                            idField.set(instance,Integer.valueOf(value+""));
-                        }
-                    }break;
-                    case "long":{
-                        if(idField.getType().isPrimitive()){
-                            idField.setLong(instance,value);
-                        }else{
-                            idField.set(instance,Long.valueOf(value));
-                        }
-                    }break;
-                    case "string":{
-                        idField.set(instance,value+"");
-                    }break;
-                }
+                PropertyAccessor.getInstance(entity).setNumberValue(instance, property, quickDAOConfig.idGenerator.getNextId());
             }
             if(property.createdAt||property.updateAt){
                 setCurrentDateTime(property,instance);
             }
-            setParameter(instance, property, preparedStatement, parameterIndex,sqlBuilder);
+            setParameter(instance, property, preparedStatement, parameterIndex,sqlLog);
             parameterIndex++;
         }
+        return parameterIndex;
     }
 
     /**
      * 根据唯一性约束更新语句
      * @param clazz 实例类对象
+     * @param dirtyMask 需要更新的属性下标集合,为null时更新全部属性
      * */
-    private String updateByUniqueKey(Class clazz){
-        String key = "updateByUniqueKey_" + clazz.getName()+"_"+quickDAOConfig.database.getClass().getSimpleName();
+    private String updateByUniqueKey(Class clazz, BitSet dirtyMask){
+        String key = "updateByUniqueKey_" + clazz.getName()+(null==dirtyMask?"":"_"+DirtyTracker.getMaskKey(dirtyMask))+"_"+quickDAOConfig.database.getClass().getSimpleName();
         if (!quickDAOConfig.sqlCache.containsKey(key)) {
             StringBuilder builder = new StringBuilder();
             Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
             builder.append("update " + entity.escapeTableName + " set ");
-            for (Property property : entity.properties) {
+            for (int i=0;i<entity.properties.size();i++) {
+                Property property = entity.properties.get(i);
                 if (property.id || property.unique) {
                     continue;
                 }
                 if(property.createdAt){
                     continue;
                 }
+                if(null!=dirtyMask&&!dirtyMask.get(i)){
+                    continue;
+                }
                 builder.append(quickDAOConfig.database.escape(property.column) + " = "+(null==property.function?"?":property.function)+",");
             }
             builder.deleteCharAt(builder.length() - 1);
@@ -274,27 +531,32 @@ public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilde
      * 设置根据唯一性约束插入参数值
      * @param preparedStatement SQL语句
      * @param instance 实例对象
-     * @param sqlBuilder sql日志
+     * @param dirtyMask 需要更新的属性下标集合,为null时更新全部属性
+     * @param sqlLog sql日志
      * */
-    private void updateByUniqueKey(PreparedStatement preparedStatement,Object instance, StringBuilder sqlBuilder) throws Exception {
+    private void updateByUniqueKey(PreparedStatement preparedStatement,Object instance, BitSet dirtyMask, SQLLog sqlLog) throws Exception {
         int parameterIndex = 1;
         Entity entity = quickDAOConfig.getEntityByClassName(instance.getClass().getName());
-        for (Property property : entity.properties) {
+        for (int i=0;i<entity.properties.size();i++) {
+            Property property = entity.properties.get(i);
             if (property.id || property.unique) {
                 continue;
             }
             if(property.createdAt){
                 continue;
             }
+            if(null!=dirtyMask&&!dirtyMask.get(i)){
+                continue;
+            }
             if(property.updateAt){
                 setCurrentDateTime(property,instance);
             }
-            setParameter(instance, property, preparedStatement, parameterIndex,sqlBuilder);
+            setParameter(instance, property, preparedStatement, parameterIndex,sqlLog);
             parameterIndex++;
         }
         for (Property property : entity.properties) {
             if (property.unique&&!property.id) {
-                setParameter(instance, property, preparedStatement, parameterIndex,sqlBuilder);
+                setParameter(instance, property, preparedStatement, parameterIndex,sqlLog);
                 parameterIndex++;
             }
         }
@@ -303,20 +565,25 @@ public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilde
     /**
      * 根据id更新语句
      * @param clazz 实例类对象
+     * @param dirtyMask 需要更新的属性下标集合,为null时更新全部属性
      * */
-    private String updateById(Class clazz){
-        String key = "updateById_" + clazz.getName()+"_"+quickDAOConfig.database.getClass().getSimpleName();
+    private String updateById(Class clazz, BitSet dirtyMask){
+        String key = "updateById_" + clazz.getName()+(null==dirtyMask?"":"_"+DirtyTracker.getMaskKey(dirtyMask))+"_"+quickDAOConfig.database.getClass().getSimpleName();
         if (!quickDAOConfig.sqlCache.containsKey(key)) {
             StringBuilder builder = new StringBuilder();
             Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
             builder.append("update " + entity.escapeTableName + " set ");
-            for (Property property : entity.properties) {
+            for (int i=0;i<entity.properties.size();i++) {
+                Property property = entity.properties.get(i);
                 if (property.id) {
                     continue;
                 }
                 if(property.createdAt){
                     continue;
                 }
+                if(null!=dirtyMask&&!dirtyMask.get(i)){
+                    continue;
+                }
                 builder.append(quickDAOConfig.database.escape(property.column) + " = ?,");
             }
             builder.deleteCharAt(builder.length() - 1);
@@ -330,26 +597,31 @@ public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilde
      * 设置根据id更新参数值
      * @param preparedStatement SQL语句
      * @param instance 实例对象
-     * @param sqlBuilder sql日志
+     * @param dirtyMask 需要更新的属性下标集合,为null时更新全部属性
+     * @param sqlLog sql日志
      * */
-    private void updateById(PreparedStatement preparedStatement,Object instance, StringBuilder sqlBuilder) throws Exception {
+    private void updateById(PreparedStatement preparedStatement,Object instance, BitSet dirtyMask, SQLLog sqlLog) throws Exception {
         int parameterIndex = 1;
         Entity entity = quickDAOConfig.getEntityByClassName(instance.getClass().getName());
-        for (Property property : entity.properties) {
+        for (int i=0;i<entity.properties.size();i++) {
+            Property property = entity.properties.get(i);
             if (property.id) {
                 continue;
             }
             if(property.createdAt){
                 continue;
             }
+            if(null!=dirtyMask&&!dirtyMask.get(i)){
+                continue;
+            }
             if(property.updateAt){
                 setCurrentDateTime(property,instance);
             }
-            setParameter(instance, property, preparedStatement, parameterIndex,sqlBuilder);
+            setParameter(instance, property, preparedStatement, parameterIndex,sqlLog);
             parameterIndex++;
         }
         //再设置id属性
-        setParameter(instance, entity.id , preparedStatement, parameterIndex,sqlBuilder);
+        setParameter(instance, entity.id , preparedStatement, parameterIndex,sqlLog);
     }
 
     /**
@@ -358,14 +630,13 @@ public class  AbstractDMLBuilder extends AbstractSQLBuilder implements DMLBuilde
      * @param instance 实例
      * */
     private void setCurrentDateTime(Property property, Object instance) throws Exception {
-        Field field = property.entity.clazz.getDeclaredField(property.name);
-        field.setAccessible(true);
+        PropertyAccessor propertyAccessor = PropertyAccessor.getInstance(property.entity);
         switch(property.simpleTypeName){
-            case "date":{field.set(instance,field.getType().getConstructor(long.class).newInstance(System.currentTimeMillis()));}break;
-            case "timestamp":{field.set(instance,new Timestamp(System.currentTimeMillis()));}break;
-            case "calendar":{field.set(instance, Calendar.getInstance());}break;
-            case "localdate":{field.set(instance, LocalDate.now());}break;
-            case "localdatetime":{field.set(instance, LocalDateTime.now());}break;
+            case "date":{propertyAccessor.setValue(instance, property, propertyAccessor.getType(property).getConstructor(long.class).newInstance(System.currentTimeMillis()));}break;
+            case "timestamp":{propertyAccessor.setValue(instance, property, new Timestamp(System.currentTimeMillis()));}break;
+            case "calendar":{propertyAccessor.setValue(instance, property, Calendar.getInstance());}break;
+            case "localdate":{propertyAccessor.setValue(instance, property, LocalDate.now());}break;
+            case "localdatetime":{propertyAccessor.setValue(instance, property, LocalDateTime.now());}break;
             default:{
                 logger.warn("[不支持的日期类型]{},目前支持的类型为Date,Calendar,LocalDate,LocalDateTime!",property.simpleTypeName);
             };break;
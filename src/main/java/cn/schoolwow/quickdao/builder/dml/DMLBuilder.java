@@ -2,6 +2,8 @@ package cn.schoolwow.quickdao.builder.dml;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.List;
 
 /**负责数据库增删改操作*/
 public interface DMLBuilder {
@@ -11,18 +13,75 @@ public interface DMLBuilder {
     PreparedStatement[] insert(Object[] instances) throws Exception;
     /**批量插入语句*/
     PreparedStatement insertBatch(Object[] instances) throws Exception;
+    /**
+     * 批量插入语句
+     * @param instances 实例数组
+     * @param from 起始下标(包含)
+     * @param to 结束下标(不包含)
+     * @param returnGeneratedKeys 是否返回自增id
+     * */
+    PreparedStatement insertBatch(Object[] instances, int from, int to, boolean returnGeneratedKeys) throws Exception;
+    /**
+     * 多行values插入语句
+     * @param instances 实例数组
+     * @param from 起始下标(包含)
+     * @param to 结束下标(不包含)
+     * @param returnGeneratedKeys 是否返回自增id
+     * */
+    PreparedStatement insertMultiValues(Object[] instances, int from, int to, boolean returnGeneratedKeys) throws Exception;
+    /**
+     * 插入或更新语句
+     * @param instances 实例数组
+     * @param from 起始下标(包含)
+     * @param to 结束下标(不包含)
+     * @param ignore 记录已存在时是否忽略
+     * */
+    PreparedStatement upsert(Object[] instances, int from, int to, boolean ignore) throws Exception;
     /**根据唯一性约束更新*/
     PreparedStatement updateByUniqueKey(Object instance) throws Exception;
+    /**
+     * 根据唯一性约束更新指定属性
+     * @param instance 实例
+     * @param dirtyMask 需要更新的属性在entity.properties中的下标集合,为null时更新全部属性
+     * */
+    PreparedStatement updateByUniqueKey(Object instance, BitSet dirtyMask) throws Exception;
     /**根据唯一性约束更新*/
     PreparedStatement updateByUniqueKey(Object[] instances) throws Exception;
+    /**
+     * 根据唯一性约束批量更新指定属性
+     * @param instances 实例数组
+     * @param dirtyMask 需要更新的属性在entity.properties中的下标集合,为null时更新全部属性
+     * */
+    PreparedStatement updateByUniqueKey(Object[] instances, BitSet dirtyMask) throws Exception;
     /**根据id更新*/
     PreparedStatement updateById(Object instance) throws Exception;
+    /**
+     * 根据id更新指定属性
+     * @param instance 实例
+     * @param dirtyMask 需要更新的属性在entity.properties中的下标集合,为null时更新全部属性
+     * */
+    PreparedStatement updateById(Object instance, BitSet dirtyMask) throws Exception;
     /**根据id更新*/
     PreparedStatement updateById(Object[] instances) throws Exception;
+    /**
+     * 根据id批量更新指定属性
+     * @param instances 实例数组
+     * @param dirtyMask 需要更新的属性在entity.properties中的下标集合,为null时更新全部属性
+     * */
+    PreparedStatement updateById(Object[] instances, BitSet dirtyMask) throws Exception;
     /**根据字段值删除*/
     PreparedStatement deleteByProperty(Class clazz, String property, Object value) throws SQLException;
+    /**
+     * 根据字段值列表删除
+     * @param clazz 实体类
+     * @param property 字段名
+     * @param values 字段值列表
+     * */
+    PreparedStatement deleteInByProperty(Class clazz, String property, List values) throws SQLException;
     /**根据字段值删除*/
     PreparedStatement deleteByProperty(String tableName, String property, Object value) throws SQLException;
     /**清空表*/
     PreparedStatement clear(Class clazz) throws SQLException;
+    /**截断表,不支持truncate语句的数据库使用delete语句*/
+    PreparedStatement truncate(Class clazz) throws SQLException;
 }
@@ -14,6 +14,9 @@ import java.sql.SQLException;
 import java.util.List;
 
 public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder {
+    /**窗口函数总记录数列名*/
+    public static final String WINDOW_COUNT_COLUMN = "quickdao_window_count";
+
     public AbstractDQLBuilder(QuickDAOConfig quickDAOConfig) {
         super(quickDAOConfig);
     }
@@ -31,7 +34,7 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         String sql = quickDAOConfig.sqlCache.get(key);
         PreparedStatement ps = connection.prepareStatement(sql);
         MDC.put("name","Null查询");
-        MDC.put("sql",sql);
+        SQLLog.set(new SQLLog(sql));
         return ps;
     }
 
@@ -56,7 +59,35 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         PreparedStatement ps = connection.prepareStatement(sql);
         ps.setObject(1,value);
         MDC.put("name","字段查询");
-        MDC.put("sql",sql.replace("?",(value instanceof String)?"'"+value.toString()+"'":value.toString()));
+        SQLLog.set(new SQLLog(sql).addParameter(value));
+        return ps;
+    }
+
+    @Override
+    public PreparedStatement fetchIn(Class clazz, String field, List values) throws SQLException {
+        String key = "fetchIn_" + clazz.getName()+"_"+field+"_"+quickDAOConfig.database.getClass().getSimpleName();
+        Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
+        Property property = entity.getPropertyByFieldName(field);
+        if (!quickDAOConfig.sqlCache.containsKey(key)) {
+            StringBuilder builder = new StringBuilder("select ");
+            builder.append(columns(entity,"t"));
+            builder.append(" from " + entity.escapeTableName + " as t where t." + quickDAOConfig.database.escape(entity.getColumnNameByFieldName(field)) + " in (");
+            quickDAOConfig.sqlCache.put(key, builder.toString());
+        }
+        String placeholder = null==property||null==property.function?"?":property.function;
+        StringBuilder builder = new StringBuilder(quickDAOConfig.sqlCache.get(key));
+        for(int i=0;i<values.size();i++){
+            builder.append(placeholder+",");
+        }
+        builder.setCharAt(builder.length()-1,')');
+        String sql = builder.toString();
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
+        for(int i=0;i<values.size();i++){
+            setParameter(values.get(i),ps,i+1,sqlLog);
+        }
+        MDC.put("name","字段批量查询");
+        SQLLog.set(sqlLog);
         return ps;
     }
 
@@ -73,7 +104,7 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         String sql = quickDAOConfig.sqlCache.get(key);
         PreparedStatement ps = connection.prepareStatement(sql);
         MDC.put("name","Null查询");
-        MDC.put("sql",sql);
+        SQLLog.set(new SQLLog(sql));
         return ps;
     }
 
@@ -91,7 +122,7 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         PreparedStatement ps = connection.prepareStatement(sql);
         ps.setObject(1,value);
         MDC.put("name","字段查询");
-        MDC.put("sql",sql.replace("?",(value instanceof String)?"'"+value.toString()+"'":value.toString()));
+        SQLLog.set(new SQLLog(sql).addParameter(value));
         return ps;
     }
 
@@ -115,9 +146,10 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         builder.append(" "+query.limit);
         builder.append(") as foo");
 
-        PreparedStatement ps = connection.prepareStatement(builder.toString());
-        builder = new StringBuilder(builder.toString().replace("?",PLACEHOLDER));
-        addArraySQLParameters(ps,query,query,builder);
+        String sql = builder.toString();
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
+        addArraySQLParameters(ps,query,query,sqlLog);
         ResultSet resultSet = ps.executeQuery();
         int count = -1;
         if (resultSet.next()) {
@@ -148,9 +180,10 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         builder.append(" " + query.groupByBuilder.toString() + " " + query.havingBuilder.toString());
         builder.append(") as foo");
 
-        PreparedStatement ps = connection.prepareStatement(builder.toString());
-        builder = new StringBuilder(builder.toString().replace("?",PLACEHOLDER));
-        addArraySQLParameters(ps,query,query,builder);
+        String sql = builder.toString();
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
+        addArraySQLParameters(ps,query,query,sqlLog);
         return ps;
     }
 
@@ -164,62 +197,51 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         builder.deleteCharAt(builder.length()-1);
         builder.append(")");
 
-        PreparedStatement ps = connection.prepareStatement(builder.toString(),PreparedStatement.RETURN_GENERATED_KEYS);
-        builder = new StringBuilder(builder.toString().replace("?",PLACEHOLDER));
+        String sql = builder.toString();
+        PreparedStatement ps = connection.prepareStatement(sql,PreparedStatement.RETURN_GENERATED_KEYS);
+        SQLLog sqlLog = new SQLLog(sql);
         for (Object parameter : query.insertParameterList) {
-            setParameter(parameter,ps,query.parameterIndex++,builder);
+            setParameter(parameter,ps,query.parameterIndex++,sqlLog);
         }
         MDC.put("name","插入记录");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return ps;
     }
 
     @Override
     public PreparedStatement[] insertArray(Query query) throws SQLException {
-        StringBuilder builder = new StringBuilder("insert into " + query.entity.escapeTableName + "(");
-        List<Property> properties = query.entity.properties;
-        for(Property property:properties){
-            if(property.id&&property.strategy.equals(IdStrategy.AutoIncrement)){
-                continue;
-            }
-            builder.append(query.quickDAOConfig.database.escape(property.column) + ",");
-        }
-        builder.deleteCharAt(builder.length()-1);
-        builder.append(") values(");
-        for(Property property:properties){
-            if(property.id&&property.strategy.equals(IdStrategy.AutoIncrement)){
-                continue;
-            }
-            builder.append("?,");
-        }
-        builder.deleteCharAt(builder.length()-1);
-        builder.append(")");
-
         connection.setAutoCommit(false);
         JSONArray array = query.insertArray;
         PreparedStatement[] preparedStatements = new PreparedStatement[array.size()];
-        String sql = builder.toString();
-        builder.setLength(0);
+        String sql = getInsertArraySQL(query);
+        SQLLog sqlLog = new SQLLog(sql, quickDAOConfig.maxLogBatchCount);
         for(int i=0;i<array.size();i++){
             PreparedStatement ps = connection.prepareStatement(sql,PreparedStatement.RETURN_GENERATED_KEYS);
-            StringBuilder sqlBuilder = new StringBuilder(sql.replace("?",PLACEHOLDER));
-            JSONObject o = array.getJSONObject(i);
-            int parameterIndex = 1;
-            for(int j=0;j<properties.size();j++){
-                Property property = properties.get(j);
-                if(property.id&&property.strategy.equals(IdStrategy.AutoIncrement)){
-                    continue;
-                }
-                setParameter(o.getString(property.column),ps,parameterIndex++,sqlBuilder);
-            }
-            builder.append(sqlBuilder.toString()+";");
+            insertArray(ps,query,array.getJSONObject(i),sqlLog);
+            sqlLog.addBatch();
             preparedStatements[i] = ps;
         }
         MDC.put("name","插入记录");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return preparedStatements;
     }
 
+    @Override
+    public PreparedStatement insertArrayBatch(Query query, int from, int to) throws SQLException {
+        String sql = getInsertArraySQL(query);
+        PreparedStatement ps = connection.prepareStatement(sql,PreparedStatement.RETURN_GENERATED_KEYS);
+        SQLLog sqlLog = new SQLLog(sql, quickDAOConfig.maxLogBatchCount);
+        JSONArray array = query.insertArray;
+        for(int i=from;i<to;i++){
+            insertArray(ps,query,array.getJSONObject(i),sqlLog);
+            sqlLog.addBatch();
+            ps.addBatch();
+        }
+        MDC.put("name","批量插入记录");
+        SQLLog.set(sqlLog);
+        return ps;
+    }
+
     @Override
     public PreparedStatement update(Query query) throws SQLException {
         StringBuilder builder = new StringBuilder("update " + query.entity.escapeTableName + " as t ");
@@ -228,14 +250,15 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         addWhereStatement(query,builder);
         addJoinTableStatement(query,builder);
 
-        PreparedStatement ps = connection.prepareStatement(builder.toString());
-        builder = new StringBuilder(builder.toString().replace("?",PLACEHOLDER));
+        String sql = builder.toString();
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
         for (Object parameter : query.updateParameterList) {
-            setParameter(parameter,ps,query.parameterIndex++,builder);
+            setParameter(parameter,ps,query.parameterIndex++,sqlLog);
         }
-        addMainTableParameters(ps,query,query,builder);
+        addMainTableParameters(ps,query,query,sqlLog);
         MDC.put("name","批量更新");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return ps;
     }
 
@@ -245,11 +268,43 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         addJoinTableStatement(query,builder);
         addWhereStatement(query,builder);
 
-        PreparedStatement ps = connection.prepareStatement(builder.toString());
-        builder = new StringBuilder(builder.toString().replace("?",PLACEHOLDER));
-        addMainTableParameters(ps,query,query,builder);
+        String sql = builder.toString();
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
+        addMainTableParameters(ps,query,query,sqlLog);
         MDC.put("name","批量删除");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
+        return ps;
+    }
+
+    @Override
+    public PreparedStatement updateByIds(Query query, List ids) throws SQLException {
+        String sql = "update " + query.entity.escapeTableName + " " + query.setBuilder.toString() + getIdInStatement(query, ids.size());
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
+        int parameterIndex = 1;
+        for (Object parameter : query.updateParameterList) {
+            setParameter(parameter,ps,parameterIndex++,sqlLog);
+        }
+        for (Object id : ids) {
+            setParameter(id,ps,parameterIndex++,sqlLog);
+        }
+        MDC.put("name","根据id列表更新");
+        SQLLog.set(sqlLog);
+        return ps;
+    }
+
+    @Override
+    public PreparedStatement deleteByIds(Query query, List ids) throws SQLException {
+        String sql = "delete from " + query.entity.escapeTableName + getIdInStatement(query, ids.size());
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
+        int parameterIndex = 1;
+        for (Object id : ids) {
+            setParameter(id,ps,parameterIndex++,sqlLog);
+        }
+        MDC.put("name","根据id列表删除");
+        SQLLog.set(sqlLog);
         return ps;
     }
 
@@ -271,24 +326,52 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         }
         builder.append(" " + query.orderByBuilder.toString() + " " + query.limit);
 
-        PreparedStatement ps = connection.prepareStatement(builder.toString());
-        builder = new StringBuilder(builder.toString().replace("?",PLACEHOLDER));
-        addArraySQLParameters(ps,query,query,builder);
+        String sql = builder.toString();
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
+        addArraySQLParameters(ps,query,query,sqlLog);
         //添加union语句
         for(AbstractCondition abstractCondition:query.unionList){
             Query unionQuery = abstractCondition.query;
             for(SubQuery subQuery:unionQuery.subQueryList){
                 if(null!=subQuery.subQuery){
-                    addMainTableParameters(ps,subQuery.subQuery,query,builder);
+                    addMainTableParameters(ps,subQuery.subQuery,query,sqlLog);
                 }
             }
-            addMainTableParameters(ps,unionQuery,query,builder);
+            addMainTableParameters(ps,unionQuery,query,sqlLog);
             for (Object parameter : unionQuery.havingParameterList) {
-                setParameter(parameter,ps,query.parameterIndex++,builder);
+                setParameter(parameter,ps,query.parameterIndex++,sqlLog);
             }
         }
         MDC.put("name","获取列表");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
+        return ps;
+    }
+
+    @Override
+    public PreparedStatement getCursor(Query query) throws SQLException {
+        PreparedStatement ps = getArray(query);
+        switch (quickDAOConfig.database){
+            case Mysql:{
+                //未开启useCursorFetch时MySQL驱动只有在fetchSize为Integer.MIN_VALUE时才会逐行读取
+                if(connection.getMetaData().getURL().contains("useCursorFetch=true")){
+                    ps.setFetchSize(query.fetchSize);
+                }else{
+                    ps.setFetchSize(Integer.MIN_VALUE);
+                }
+            }break;
+            case Postgre:{
+                //PostgreSQL驱动只有在关闭自动提交时才会使用游标读取
+                if(!query.transaction){
+                    connection.setAutoCommit(false);
+                }
+                ps.setFetchSize(query.fetchSize);
+            }break;
+            default:{
+                ps.setFetchSize(query.fetchSize);
+            }
+        }
+        MDC.put("name","游标读取");
         return ps;
     }
 
@@ -306,6 +389,9 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
                 builder.append("," + columns(subQuery.entity, subQuery.tableAliasName));
             }
         }
+        if(query.windowCount){
+            builder.append(",count(*) over() as " + WINDOW_COUNT_COLUMN);
+        }
         builder.append(" from " + query.entity.escapeTableName);
         if(null!=query.entity.clazz){
             builder.append(" as " + query.tableAliasName);
@@ -339,10 +425,61 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         }
     }
 
+    /**
+     * 获取JSONArray插入语句,自增id列不插入
+     * @param query 查询对象
+     */
+    private String getInsertArraySQL(Query query) {
+        StringBuilder builder = new StringBuilder("insert into " + query.entity.escapeTableName + "(");
+        StringBuilder valuesBuilder = new StringBuilder(") values(");
+        for(Property property:query.entity.properties){
+            if(property.id&&property.strategy.equals(IdStrategy.AutoIncrement)){
+                continue;
+            }
+            builder.append(query.quickDAOConfig.database.escape(property.column) + ",");
+            valuesBuilder.append("?,");
+        }
+        builder.deleteCharAt(builder.length()-1);
+        valuesBuilder.setCharAt(valuesBuilder.length()-1,')');
+        return builder.append(valuesBuilder).toString();
+    }
+
+    /**
+     * 设置JSONArray单条记录的插入参数
+     * @param ps SQL语句
+     * @param query 查询对象
+     * @param o 记录
+     * @param sqlLog sql日志
+     */
+    private void insertArray(PreparedStatement ps, Query query, JSONObject o, SQLLog sqlLog) throws SQLException {
+        int parameterIndex = 1;
+        for(Property property:query.entity.properties){
+            if(property.id&&property.strategy.equals(IdStrategy.AutoIncrement)){
+                continue;
+            }
+            setParameter(o.getString(property.column),ps,parameterIndex++,sqlLog);
+        }
+    }
+
+    /**
+     * 获取id列表条件
+     * @param query 查询对象
+     * @param size id个数
+     */
+    private String getIdInStatement(Query query, int size) {
+        StringBuilder builder = new StringBuilder(" where " + quickDAOConfig.database.escape(query.entity.id.column) + " in (");
+        for(int i=0;i<size;i++){
+            builder.append("?,");
+        }
+        builder.setCharAt(builder.length()-1,')');
+        return builder.toString();
+    }
+
     /**
      * 添加where的SQL语句
      */
     private void addWhereStatement(Query query, StringBuilder sqlBuilder) {
+        int start = sqlBuilder.length();
         sqlBuilder.append(" " + query.whereBuilder.toString());
         for (SubQuery subQuery : query.subQueryList) {
             if (subQuery.whereBuilder.length() > 0) {
@@ -352,6 +489,76 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
         for(AbstractCondition orCondition:query.orList){
             sqlBuilder.append(" or (" + orCondition.query.whereBuilder.toString()+")");
         }
+        if(null!=query.seekValues||null!=query.rangeValues){
+            StringBuilder statementBuilder = new StringBuilder();
+            if(null!=query.seekValues){
+                statementBuilder.append(getSeekStatement(query) + " and ");
+            }
+            if(null!=query.rangeValues){
+                statementBuilder.append(query.rangeColumn + " >= ? and " + query.rangeColumn + (query.rangeEndInclusive?" <= ?":" < ?") + " and ");
+            }
+            statementBuilder.setLength(statementBuilder.length()-5);
+            String where = sqlBuilder.substring(start).trim();
+            sqlBuilder.setLength(start);
+            if(where.isEmpty()){
+                sqlBuilder.append(" where " + statementBuilder);
+            }else{
+                sqlBuilder.append(" where (" + where.substring(where.indexOf(" ")+1) + ") and " + statementBuilder);
+            }
+        }
+    }
+
+    /**
+     * 获取keyset分页条件
+     * <p>SQL Server不支持行值比较,展开为多个条件</p>
+     */
+    private String getSeekStatement(Query query) {
+        String[] seekColumns = query.seekColumns;
+        if(seekColumns.length==1){
+            return seekColumns[0] + " > ?";
+        }
+        StringBuilder builder = new StringBuilder("(");
+        if(Database.SQLServer.equals(quickDAOConfig.database)){
+            for(int i=0;i<seekColumns.length;i++){
+                builder.append("(");
+                for(int j=0;j<i;j++){
+                    builder.append(seekColumns[j] + " = ? and ");
+                }
+                builder.append(seekColumns[i] + " > ?) or ");
+            }
+            builder.delete(builder.length()-4, builder.length());
+            builder.append(")");
+        }else{
+            for(String seekColumn:seekColumns){
+                builder.append(seekColumn + ",");
+            }
+            builder.deleteCharAt(builder.length()-1);
+            builder.append(") > (");
+            for(int i=0;i<seekColumns.length;i++){
+                builder.append("?,");
+            }
+            builder.deleteCharAt(builder.length()-1);
+            builder.append(")");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 设置keyset分页条件参数
+     */
+    private void setSeekParameters(PreparedStatement ps, Query query, Query mainQuery, SQLLog sqlLog) throws SQLException {
+        Object[] seekValues = query.seekValues;
+        if(seekValues.length>1&&Database.SQLServer.equals(quickDAOConfig.database)){
+            for(int i=0;i<seekValues.length;i++){
+                for(int j=0;j<=i;j++){
+                    setParameter(seekValues[j],ps,mainQuery.parameterIndex++,sqlLog);
+                }
+            }
+        }else{
+            for(Object seekValue:seekValues){
+                setParameter(seekValue,ps,mainQuery.parameterIndex++,sqlLog);
+            }
+        }
     }
 
     /**
@@ -359,44 +566,62 @@ public class AbstractDQLBuilder extends AbstractSQLBuilder implements DQLBuilder
      * @param ps prepareStatment对象
      * @param query 当前query对象
      * @param mainQuery 主query
-     * @param builder SQL语句拼接
+     * @param sqlLog sql日志
      * */
-    private void addArraySQLParameters(PreparedStatement ps, Query query, Query mainQuery, StringBuilder builder) throws SQLException {
+    private void addArraySQLParameters(PreparedStatement ps, Query query, Query mainQuery, SQLLog sqlLog) throws SQLException {
         for(Query selectQuery:query.selectQueryList){
-            addArraySQLParameters(ps,selectQuery,mainQuery,builder);
+            addArraySQLParameters(ps,selectQuery,mainQuery,sqlLog);
         }
         //from子查询
         if(null!=query.fromQuery){
-            addArraySQLParameters(ps,query.fromQuery,mainQuery,builder);
+            addArraySQLParameters(ps,query.fromQuery,mainQuery,sqlLog);
         }
         //关联子查询
         for(SubQuery subQuery:query.subQueryList){
             if(null!=subQuery.subQuery){
-                addArraySQLParameters(ps,subQuery.subQuery,mainQuery,builder);
+                addArraySQLParameters(ps,subQuery.subQuery,mainQuery,sqlLog);
             }
         }
-        addMainTableParameters(ps,query,mainQuery,builder);
+        addMainTableParameters(ps,query,mainQuery,sqlLog);
     }
 
     /**
      * 添加主表参数
      */
-    protected void addMainTableParameters(PreparedStatement ps, Query query, Query mainQuery, StringBuilder sqlBuilder) throws SQLException {
-        for (Object parameter : query.parameterList) {
-            setParameter(parameter,ps,mainQuery.parameterIndex++,sqlBuilder);
-        }
+    protected void addMainTableParameters(PreparedStatement ps, Query query, Query mainQuery, SQLLog sqlLog) throws SQLException {
+        setParameters(query.parameterList,ps,mainQuery,sqlLog);
         for (SubQuery subQuery : query.subQueryList) {
-            for (Object parameter : subQuery.parameterList) {
-                setParameter(parameter,ps,mainQuery.parameterIndex++,sqlBuilder);
-            }
+            setParameters(subQuery.parameterList,ps,mainQuery,sqlLog);
         }
         for(AbstractCondition orCondition:query.orList){
-            for (Object parameter : orCondition.query.parameterList) {
-                setParameter(parameter,ps,mainQuery.parameterIndex++,sqlBuilder);
+            setParameters(orCondition.query.parameterList,ps,mainQuery,sqlLog);
+        }
+        if(null!=query.seekValues){
+            setSeekParameters(ps,query,mainQuery,sqlLog);
+        }
+        if(null!=query.rangeValues){
+            for(Object rangeValue:query.rangeValues){
+                setParameter(rangeValue,ps,mainQuery.parameterIndex++,sqlLog);
             }
         }
         for (Object parameter : query.havingParameterList) {
-            setParameter(parameter,ps,mainQuery.parameterIndex++,sqlBuilder);
+            setParameter(parameter,ps,mainQuery.parameterIndex++,sqlLog);
+        }
+    }
+
+    /**
+     * 设置查询条件参数,long数组参数依次绑定到连续的占位符
+     */
+    private void setParameters(List parameterList, PreparedStatement ps, Query mainQuery, SQLLog sqlLog) throws SQLException {
+        for (Object parameter : parameterList) {
+            if(parameter instanceof long[]){
+                for(long value:(long[]) parameter){
+                    ps.setLong(mainQuery.parameterIndex++,value);
+                }
+                sqlLog.addParameters((long[]) parameter);
+                continue;
+            }
+            setParameter(parameter,ps,mainQuery.parameterIndex++,sqlLog);
         }
     }
 
@@ -4,6 +4,7 @@ import cn.schoolwow.quickdao.domain.Query;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 
 /**负责SQL简单查询接口*/
 public interface DQLBuilder {
@@ -13,6 +14,8 @@ public interface DQLBuilder {
     PreparedStatement fetch(Class clazz, long id) throws SQLException;
     /**根据字段值查询*/
     PreparedStatement fetch(Class clazz, String field, Object value) throws SQLException;
+    /**根据字段值列表查询*/
+    PreparedStatement fetchIn(Class clazz, String field, List values) throws SQLException;
     /**is null查询*/
     PreparedStatement fetchNull(String tableName, String field) throws SQLException;
     /**根据字段值查询*/
@@ -25,12 +28,20 @@ public interface DQLBuilder {
     PreparedStatement insert(Query query) throws SQLException;
     /**批量插入记录*/
     PreparedStatement[] insertArray(Query query) throws SQLException;
+    /**批量插入记录,执行下标从from到to的记录*/
+    PreparedStatement insertArrayBatch(Query query, int from, int to) throws SQLException;
     /**更新符合条件的记录*/
     PreparedStatement update(Query query) throws SQLException;
     /**删除符合条件的数据库记录*/
     PreparedStatement delete(Query query) throws SQLException;
+    /**根据id列表更新记录,更新内容由query指定*/
+    PreparedStatement updateByIds(Query query, List ids) throws SQLException;
+    /**根据id列表删除记录*/
+    PreparedStatement deleteByIds(Query query, List ids) throws SQLException;
     /**返回符合条件的数据库记录*/
     PreparedStatement getArray(Query query) throws SQLException;
+    /**以游标方式返回符合条件的数据库记录*/
+    PreparedStatement getCursor(Query query) throws SQLException;
     /**获取query对应的SQL语句*/
     StringBuilder getArraySQL(Query query);
 }
@@ -2,6 +2,7 @@ package cn.schoolwow.quickdao.builder.dql;
 
 import cn.schoolwow.quickdao.domain.Query;
 import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.domain.SQLLog;
 import org.slf4j.MDC;
 
 import java.sql.PreparedStatement;
@@ -19,14 +20,15 @@ public class SQLiteDQLBuilder extends AbstractDQLBuilder {
         builder.append(query.setBuilder.toString());
         builder.append(" " + query.whereBuilder.toString());
 
-        PreparedStatement ps = connection.prepareStatement(builder.toString().replace(query.tableAliasName+".",""));
-        builder = new StringBuilder(builder.toString().replace("?",PLACEHOLDER));
+        String sql = builder.toString();
+        PreparedStatement ps = connection.prepareStatement(sql.replace(query.tableAliasName+".",""));
+        SQLLog sqlLog = new SQLLog(sql);
         for (Object parameter : query.updateParameterList) {
-            setParameter(parameter,ps,query.parameterIndex++,builder);
+            setParameter(parameter,ps,query.parameterIndex++,sqlLog);
         }
-        addMainTableParameters(ps,query,query,builder);
+        addMainTableParameters(ps,query,query,sqlLog);
         MDC.put("name","批量更新");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return ps;
     }
 
@@ -35,11 +37,12 @@ public class SQLiteDQLBuilder extends AbstractDQLBuilder {
         StringBuilder builder = new StringBuilder("delete from "+query.quickDAOConfig.database.escape(query.entity.tableName));
         builder.append(" " + query.whereBuilder.toString().replace(query.tableAliasName+".",""));
 
-        PreparedStatement ps = connection.prepareStatement(builder.toString());
-        builder = new StringBuilder(builder.toString().replace("?",PLACEHOLDER));
-        addMainTableParameters(ps,query,query,builder);
+        String sql = builder.toString();
+        PreparedStatement ps = connection.prepareStatement(sql);
+        SQLLog sqlLog = new SQLLog(sql);
+        addMainTableParameters(ps,query,query,sqlLog);
         MDC.put("name","批量删除");
-        MDC.put("sql",builder.toString());
+        SQLLog.set(sqlLog);
         return ps;
     }
 }
@@ -1,5 +1,9 @@
 package cn.schoolwow.quickdao.dao;
 
+import cn.schoolwow.quickdao.dao.buffer.AbstractWriteBehindBuffer;
+import cn.schoolwow.quickdao.dao.buffer.WriteBehindBuffer;
+import cn.schoolwow.quickdao.dao.bulk.AbstractBulkLoader;
+import cn.schoolwow.quickdao.dao.bulk.BulkLoader;
 import cn.schoolwow.quickdao.domain.Entity;
 import cn.schoolwow.quickdao.domain.Interceptor;
 import cn.schoolwow.quickdao.domain.Property;
@@ -41,6 +45,16 @@ public class AbstractDAOOperation implements DAOOperation{
         }
     }
 
+    @Override
+    public <T> BulkLoader<T> bulkLoader(Class<T> clazz) {
+        return new AbstractBulkLoader<>(quickDAOConfig, clazz);
+    }
+
+    @Override
+    public <T> WriteBehindBuffer<T> writeBehindBuffer(Class<T> clazz) {
+        return quickDAOConfig.writeBehindBufferMap.computeIfAbsent(clazz, k->new AbstractWriteBehindBuffer<>(quickDAOConfig, clazz));
+    }
+
     @Override
     public boolean hasTable(final String tableName) {
         Collection<Entity> entityCollection = quickDAOConfig.entityMap.values();
@@ -5,8 +5,8 @@ import cn.schoolwow.quickdao.dao.sql.ddl.AbstractDDLDAO;
 import cn.schoolwow.quickdao.dao.sql.ddl.DDLDAO;
 import cn.schoolwow.quickdao.dao.sql.dml.AbstractDMLDAO;
 import cn.schoolwow.quickdao.dao.sql.dql.AbstractDQLDAO;
-import cn.schoolwow.quickdao.domain.Interceptor;
 import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.domain.SQLLog;
 import cn.schoolwow.quickdao.query.AbstractCompositQuery;
 import cn.schoolwow.quickdao.query.CompositQuery;
 import org.slf4j.Logger;
@@ -67,28 +67,15 @@ public class DAOInvocationHandler implements InvocationHandler {
                     DDLDAO ddldao = (DDLDAO) instance;
                     ddldao.refreshDbEntityList();
                 }
-                if (null != MDC.get("name")) {
-                    if (null == MDC.get("count")) {
-                        logger.debug("[{}]耗时:{}ms,执行SQL:{}", MDC.get("name"), endTime - startTime, MDC.get("sql"));
-                    } else {
-                        logger.debug("[{}]行数:{},耗时:{}ms,执行SQL:{}", MDC.get("name"), MDC.get("count"), endTime - startTime, MDC.get("sql"));
-                    }
-                }
-                for(Interceptor interceptor:quickDAOConfig.interceptorList){
-                    interceptor.afterExecuteConnection(MDC.get("name"),MDC.get("sql"));
-                }
+                SQLLog.logExecution(logger, quickDAOConfig, endTime - startTime);
                 return result;
             }catch (InvocationTargetException e){
-                if (null != MDC.get("name")) {
-                    logger.warn("[{}]原始SQL:{}", MDC.get("name"), MDC.get("sql"));
-                }
-                for(Interceptor interceptor:quickDAOConfig.interceptorList){
-                    interceptor.afterExecuteConnection(MDC.get("name"),MDC.get("sql"));
-                }
+                SQLLog.logFailure(logger, quickDAOConfig);
                 throw e.getTargetException();
             }finally {
                 instance.sqlBuilder.connection.close();
                 MDC.clear();
+                SQLLog.clear();
             }
         }
     }
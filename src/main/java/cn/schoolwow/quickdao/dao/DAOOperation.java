@@ -1,5 +1,7 @@
 package cn.schoolwow.quickdao.dao;
 
+import cn.schoolwow.quickdao.dao.buffer.WriteBehindBuffer;
+import cn.schoolwow.quickdao.dao.bulk.BulkLoader;
 import cn.schoolwow.quickdao.domain.Entity;
 import cn.schoolwow.quickdao.domain.Interceptor;
 import cn.schoolwow.quickdao.domain.Property;
@@ -20,6 +22,18 @@ public interface DAOOperation {
      */
     Transaction startTransaction();
 
+    /**
+     * 获取流式批量导入对象
+     * @param clazz 实体类
+     */
+    <T> BulkLoader<T> bulkLoader(Class<T> clazz);
+
+    /**
+     * 获取实体类的异步写缓冲,同一实体类返回同一对象,关闭后再次获取时重新创建
+     * @param clazz 实体类
+     */
+    <T> WriteBehindBuffer<T> writeBehindBuffer(Class<T> clazz);
+
     /**
      * 表是否存在
      * @param tableName 表名
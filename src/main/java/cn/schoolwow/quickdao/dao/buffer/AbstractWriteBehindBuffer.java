@@ -0,0 +1,252 @@
+package cn.schoolwow.quickdao.dao.buffer;
+
+import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.Property;
+import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.exception.SQLRuntimeException;
+import cn.schoolwow.quickdao.mapper.PropertyAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class AbstractWriteBehindBuffer<T> implements WriteBehindBuffer<T> {
+    private Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+    /**数据库配置对象*/
+    private QuickDAOConfig quickDAOConfig;
+    /**实体类*/
+    private Class<T> clazz;
+    /**实体类信息*/
+    private Entity entity;
+    /**合并更新操作依据的属性,与update方法判断记录的属性一致*/
+    private List<Property> keyProperties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /**缓存未满*/
+    private final Condition notFull = lock.newCondition();
+    /**需要刷新缓存*/
+    private final Condition flushRequired = lock.newCondition();
+    /**刷新缓存时加锁,保证各批次按顺序写入*/
+    private final Object flushMonitor = new Object();
+
+    /**待写入批次,按调用顺序排列,相邻的同类操作合并为一个批次*/
+    private LinkedList<Batch> batchList = new LinkedList<>();
+    /**待写入对象个数*/
+    private int size;
+
+    /**是否已关闭*/
+    private volatile boolean closed;
+    /**写入失败回调*/
+    private volatile WriteBehindFailureHandler<T> failureHandler;
+    /**后台刷新线程*/
+    private Thread flushThread;
+
+    public AbstractWriteBehindBuffer(QuickDAOConfig quickDAOConfig, Class<T> clazz) {
+        this.quickDAOConfig = quickDAOConfig;
+        this.clazz = clazz;
+        this.entity = quickDAOConfig.getEntityByClassName(clazz.getName());
+        if(null!=entity.uniqueKeyProperties&&entity.uniqueKeyProperties.size()>0&&entity.uniqueKeyProperties.size() + 1 != entity.properties.size()){
+            keyProperties = entity.uniqueKeyProperties;
+        }else if(null!=entity.id){
+            keyProperties = Collections.singletonList(entity.id);
+        }else{
+            keyProperties = Collections.emptyList();
+        }
+        flushThread = new Thread(this::run, "quickdao-write-behind-" + entity.tableName);
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    @Override
+    public void insert(T instance) {
+        offer(Operation.Insert, instance);
+    }
+
+    @Override
+    public void upsert(T instance) {
+        offer(Operation.Upsert, instance);
+    }
+
+    @Override
+    public void update(T instance) {
+        offer(Operation.Update, instance);
+    }
+
+    @Override
+    public WriteBehindBuffer<T> failureHandler(WriteBehindFailureHandler<T> failureHandler) {
+        this.failureHandler = failureHandler;
+        return this;
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() {
+        synchronized (flushMonitor){
+            List<Batch> batches;
+            lock.lock();
+            try {
+                if(batchList.isEmpty()){
+                    return;
+                }
+                batches = batchList;
+                batchList = new LinkedList<>();
+                size = 0;
+                notFull.signalAll();
+            }finally {
+                lock.unlock();
+            }
+            //按调用顺序依次写入各批次,保证后执行的操作覆盖先执行的操作
+            for(Batch batch:batches){
+                write(batch.operation, new ArrayList<>(batch.instanceMap.values()));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if(closed){
+                return;
+            }
+            closed = true;
+            flushRequired.signalAll();
+            notFull.signalAll();
+        }finally {
+            lock.unlock();
+        }
+        try {
+            flushThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        quickDAOConfig.writeBehindBufferMap.remove(clazz, this);
+    }
+
+    /**
+     * 缓存操作,缓存已满时阻塞
+     * @param operation 操作类型
+     * @param instance 实例
+     */
+    private void offer(Operation operation, T instance) {
+        if(null==instance){
+            return;
+        }
+        lock.lock();
+        try {
+            while(!closed&&size>=quickDAOConfig.writeBehindCapacity){
+                flushRequired.signal();
+                notFull.await();
+            }
+            if(closed){
+                throw new IllegalStateException("异步写缓冲已关闭!类名:"+clazz.getName());
+            }
+            Batch batch = batchList.peekLast();
+            if(null==batch||batch.operation!=operation){
+                batch = new Batch(operation);
+                batchList.add(batch);
+            }
+            //只合并相邻更新操作中同一记录的更新,插入操作不合并
+            Object key = Operation.Update==operation?getKey(instance):new Object();
+            if(null==batch.instanceMap.put(key, instance)){
+                size++;
+            }
+            if(size>=quickDAOConfig.writeBehindFlushSize){
+                flushRequired.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLRuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**后台线程按数量或者时间间隔刷新缓存*/
+    private void run() {
+        while(!closed){
+            lock.lock();
+            try {
+                if(!closed&&size<quickDAOConfig.writeBehindFlushSize){
+                    flushRequired.await(quickDAOConfig.writeBehindFlushInterval, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flush();
+            }catch (Exception e){
+                logger.warn("[异步写缓冲刷新失败]表名:{}", entity.tableName, e);
+            }
+        }
+    }
+
+    /**
+     * 批量写入
+     * @param operation 操作类型
+     * @param instanceList 实例列表
+     */
+    private void write(Operation operation, List<T> instanceList) {
+        if(instanceList.isEmpty()){
+            return;
+        }
+        try {
+            switch (operation){
+                case Insert:{quickDAOConfig.dao.insert(instanceList);}break;
+                case Upsert:{quickDAOConfig.dao.upsert(instanceList);}break;
+                case Update:{quickDAOConfig.dao.update(instanceList);}break;
+            }
+        }catch (Exception e){
+            WriteBehindFailureHandler<T> failureHandler = this.failureHandler;
+            if(null==failureHandler){
+                logger.warn("[异步写缓冲写入失败]操作:{},表名:{},条数:{}", operation, entity.tableName, instanceList.size(), e);
+            }else{
+                failureHandler.onFailure(operation, instanceList, e);
+            }
+        }
+    }
+
+    /**
+     * 获取合并更新操作的键值
+     * @param instance 实例
+     */
+    private List<Object> getKey(T instance) {
+        if(keyProperties.isEmpty()){
+            //无法判断是否为同一记录时不合并
+            return Collections.singletonList(new Object());
+        }
+        PropertyAccessor propertyAccessor = PropertyAccessor.getInstance(entity);
+        List<Object> key = new ArrayList<>(keyProperties.size());
+        for(Property property:keyProperties){
+            key.add(propertyAccessor.getValue(instance, property));
+        }
+        return key;
+    }
+
+    /**同类操作组成的写入批次*/
+    private class Batch {
+        /**操作类型*/
+        private final Operation operation;
+        /**批次内的实例,更新操作以记录键值为键*/
+        private final Map<Object,T> instanceMap = new LinkedHashMap<>();
+
+        private Batch(Operation operation) {
+            this.operation = operation;
+        }
+    }
+}
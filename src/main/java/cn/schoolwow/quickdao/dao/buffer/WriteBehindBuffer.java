@@ -0,0 +1,51 @@
+package cn.schoolwow.quickdao.dao.buffer;
+
+/**
+ * 异步写缓冲
+ * <p>缓存插入,插入或更新,更新操作,由后台线程在缓存数量达到阈值或者间隔时间到达时批量写入数据库</p>
+ * <p>按调用顺序写入,相邻的同类操作合并为一个批次,相邻更新操作中同一记录的多次更新只保留最后一次</p>
+ * <p>缓存数量达到容量上限时调用线程阻塞,直到缓存被刷新</p>
+ * @param <T> 实体类类型
+ */
+public interface WriteBehindBuffer<T> extends AutoCloseable {
+    /**写缓冲操作类型*/
+    enum Operation {
+        Insert,
+        Upsert,
+        Update;
+    }
+
+    /**
+     * 缓存插入操作
+     * @param instance 待插入对象
+     */
+    void insert(T instance);
+
+    /**
+     * 缓存插入或更新操作
+     * @param instance 待保存对象
+     */
+    void upsert(T instance);
+
+    /**
+     * 缓存更新操作,与前一次更新之间没有其他操作时,同一记录的多次更新合并为一次
+     * @param instance 待更新对象
+     */
+    void update(T instance);
+
+    /**
+     * 指定写入失败回调,未指定时输出警告日志
+     * @param failureHandler 写入失败回调
+     */
+    WriteBehindBuffer<T> failureHandler(WriteBehindFailureHandler<T> failureHandler);
+
+    /**当前缓存的操作个数*/
+    int size();
+
+    /**立即将缓存写入数据库,返回时已写入完毕*/
+    void flush();
+
+    /**停止后台线程并写入剩余缓存,关闭后不能再缓存操作*/
+    @Override
+    void close();
+}
@@ -0,0 +1,17 @@
+package cn.schoolwow.quickdao.dao.buffer;
+
+import java.util.List;
+
+/**
+ * 异步写缓冲写入失败回调
+ * @param <T> 实体类类型
+ */
+public interface WriteBehindFailureHandler<T> {
+    /**
+     * 批量写入失败时调用
+     * @param operation 操作类型
+     * @param instances 写入失败的对象
+     * @param e 异常
+     */
+    void onFailure(WriteBehindBuffer.Operation operation, List<T> instances, Exception e);
+}
@@ -0,0 +1,232 @@
+package cn.schoolwow.quickdao.dao.bulk;
+
+import cn.schoolwow.quickdao.builder.ddl.AbstractDDLBuilder;
+import cn.schoolwow.quickdao.builder.dml.AbstractDMLBuilder;
+import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.IndexType;
+import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.domain.SQLLog;
+import cn.schoolwow.quickdao.exception.SQLRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class AbstractBulkLoader<T> implements BulkLoader<T> {
+    private Logger logger = LoggerFactory.getLogger(BulkLoader.class);
+    /**数据库配置对象*/
+    private QuickDAOConfig quickDAOConfig;
+    /**实体类*/
+    private Class<T> clazz;
+    /**每批次执行的记录数*/
+    private int batchSize;
+    /**提交事务间隔行数*/
+    private int commitInterval = 10000;
+    /**是否删除普通索引*/
+    private boolean dropIndex;
+    /**是否更新表统计信息*/
+    private boolean analyze;
+    /**进度监听器*/
+    private BulkLoadListener listener;
+
+    public AbstractBulkLoader(QuickDAOConfig quickDAOConfig, Class<T> clazz) {
+        this.quickDAOConfig = quickDAOConfig;
+        this.clazz = clazz;
+        this.batchSize = quickDAOConfig.batchSize;
+    }
+
+    @Override
+    public BulkLoader<T> batchSize(int batchSize) {
+        if(batchSize<=0){
+            throw new IllegalArgumentException("批次记录数必须大于0!");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    @Override
+    public BulkLoader<T> commitInterval(int commitInterval) {
+        if(commitInterval<=0){
+            throw new IllegalArgumentException("提交间隔行数必须大于0!");
+        }
+        this.commitInterval = commitInterval;
+        return this;
+    }
+
+    @Override
+    public BulkLoader<T> dropIndex(boolean dropIndex) {
+        this.dropIndex = dropIndex;
+        return this;
+    }
+
+    @Override
+    public BulkLoader<T> analyze(boolean analyze) {
+        this.analyze = analyze;
+        return this;
+    }
+
+    @Override
+    public BulkLoader<T> listener(BulkLoadListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    @Override
+    public long load(Iterator<? extends T> iterator) {
+        Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
+        Object[] batch = new Object[batchSize];
+        long rows = 0;
+        long startTime = System.currentTimeMillis();
+        try (Connection connection = quickDAOConfig.dataSource.getConnection()){
+            boolean autoCommit = connection.getAutoCommit();
+            AbstractDMLBuilder dmlBuilder = new AbstractDMLBuilder(quickDAOConfig);
+            dmlBuilder.connection = connection;
+            AbstractDDLBuilder ddlBuilder = quickDAOConfig.database.getDDLBuilderInstance(quickDAOConfig);
+            ddlBuilder.connection = connection;
+            //导入失败时的原始异常,恢复索引和连接设置失败时作为被抑制的异常附加到原始异常上
+            Exception failure = null;
+            boolean indexDropped = false;
+            try {
+                connection.setAutoCommit(true);
+                if(dropIndex&&ddlBuilder.hasIndexExists(entity, IndexType.Index)){
+                    ddlBuilder.dropIndex(entity, IndexType.Index);
+                    indexDropped = true;
+                }
+                connection.setAutoCommit(false);
+                int size = 0;
+                long uncommitted = 0;
+                while(iterator.hasNext()){
+                    batch[size++] = iterator.next();
+                    if(size==batchSize){
+                        executeBatch(dmlBuilder, batch, size);
+                        rows += size;
+                        uncommitted += size;
+                        size = 0;
+                        if(uncommitted>=commitInterval){
+                            connection.commit();
+                            uncommitted = 0;
+                            onProgress(rows, startTime);
+                        }
+                    }
+                }
+                if(size>0){
+                    executeBatch(dmlBuilder, batch, size);
+                    rows += size;
+                }
+                connection.commit();
+                onProgress(rows, startTime);
+            } catch (SQLException|RuntimeException e) {
+                failure = e;
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackException) {
+                    e.addSuppressed(rollbackException);
+                }
+                throw e;
+            } finally {
+                try {
+                    if(indexDropped){
+                        connection.setAutoCommit(true);
+                        ddlBuilder.createIndex(entity, IndexType.Index);
+                    }
+                } catch (SQLException|RuntimeException e) {
+                    if(null==failure){
+                        failure = e;
+                        throw e;
+                    }
+                    failure.addSuppressed(e);
+                } finally {
+                    try {
+                        connection.setAutoCommit(autoCommit);
+                    } catch (SQLException e) {
+                        if(null==failure){
+                            throw e;
+                        }
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if(analyze){
+                ddlBuilder.analyze(entity);
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        } finally {
+            MDC.clear();
+            SQLLog.clear();
+        }
+        logger.debug("[批量导入]表名:{},行数:{},耗时:{}ms", entity.tableName, rows, System.currentTimeMillis()-startTime);
+        return rows;
+    }
+
+    @Override
+    public long load(Stream<? extends T> stream) {
+        return load(stream.iterator());
+    }
+
+    @Override
+    public long load(Supplier<? extends T> supplier) {
+        return load(new Iterator<T>() {
+            private T next = supplier.get();
+
+            @Override
+            public boolean hasNext() {
+                return null!=next;
+            }
+
+            @Override
+            public T next() {
+                if(null==next){
+                    throw new NoSuchElementException();
+                }
+                T current = next;
+                next = supplier.get();
+                return current;
+            }
+        });
+    }
+
+    /**
+     * 执行一个批次,执行完毕后清空批次数组以便复用
+     * @param dmlBuilder 语句构建对象
+     * @param batch 批次数组
+     * @param size 批次记录数
+     */
+    private void executeBatch(AbstractDMLBuilder dmlBuilder, Object[] batch, int size) throws SQLException {
+        try {
+            PreparedStatement ps = dmlBuilder.insertBatch(batch, 0, size, false);
+            try {
+                ps.executeBatch();
+            } finally {
+                ps.close();
+            }
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLRuntimeException(e);
+        } finally {
+            Arrays.fill(batch, 0, size, null);
+        }
+    }
+
+    /**
+     * 通知导入进度
+     * @param rows 已导入行数
+     * @param startTime 开始时间
+     */
+    private void onProgress(long rows, long startTime) {
+        if(null==listener){
+            return;
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis()-startTime);
+        listener.onProgress(rows, elapsed, rows*1000.0/elapsed);
+    }
+}
@@ -0,0 +1,14 @@
+package cn.schoolwow.quickdao.dao.bulk;
+
+/**
+ * 批量导入进度监听器
+ */
+public interface BulkLoadListener {
+    /**
+     * 每次提交事务后调用
+     * @param rows 已导入行数
+     * @param elapsed 已耗时(毫秒)
+     * @param rowsPerSecond 平均每秒导入行数
+     */
+    void onProgress(long rows, long elapsed, double rowsPerSecond);
+}
@@ -0,0 +1,65 @@
+package cn.schoolwow.quickdao.dao.bulk;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 流式批量导入
+ * <p>逐条读取数据源并填充固定大小的批次,每批执行一次executeBatch,每导入指定行数提交一次事务,内存占用与数据总量无关</p>
+ * <p>不回写自增id</p>
+ * @param <T> 实体类类型
+ */
+public interface BulkLoader<T> {
+    /**
+     * 指定每批次执行的记录数,默认为{@link cn.schoolwow.quickdao.domain.QuickDAOConfig#batchSize}
+     * @param batchSize 每批次记录数
+     */
+    BulkLoader<T> batchSize(int batchSize);
+
+    /**
+     * 指定每导入多少行提交一次事务,默认为10000,在批次执行完毕后判断
+     * @param commitInterval 提交间隔行数
+     */
+    BulkLoader<T> commitInterval(int commitInterval);
+
+    /**
+     * 导入前删除普通索引,导入完成后重新创建
+     * <p>唯一性约束索引保留,以免导入重复数据</p>
+     * @param dropIndex 是否删除普通索引
+     */
+    BulkLoader<T> dropIndex(boolean dropIndex);
+
+    /**
+     * 导入完成后更新表统计信息
+     * @param analyze 是否更新表统计信息
+     */
+    BulkLoader<T> analyze(boolean analyze);
+
+    /**
+     * 指定进度监听器,每次提交事务后调用
+     * @param listener 进度监听器
+     */
+    BulkLoader<T> listener(BulkLoadListener listener);
+
+    /**
+     * 导入迭代器中的数据
+     * @param iterator 数据迭代器
+     * @return 导入行数
+     */
+    long load(Iterator<? extends T> iterator);
+
+    /**
+     * 导入流中的数据,不会关闭该流
+     * @param stream 数据流
+     * @return 导入行数
+     */
+    long load(Stream<? extends T> stream);
+
+    /**
+     * 导入数据,直到supplier返回null为止
+     * @param supplier 数据提供者
+     * @return 导入行数
+     */
+    long load(Supplier<? extends T> supplier);
+}
@@ -2,15 +2,17 @@ package cn.schoolwow.quickdao.dao.sql;
 
 import cn.schoolwow.quickdao.builder.AbstractSQLBuilder;
 import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.Property;
 import cn.schoolwow.quickdao.domain.QuickDAOConfig;
 import cn.schoolwow.quickdao.exception.SQLRuntimeException;
+import cn.schoolwow.quickdao.mapper.PropertyAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.util.Collection;
+import java.util.*;
 
 /**
  * 数据库操作实例
@@ -58,9 +60,27 @@ public class AbstractSQLDAO implements SQLDAO {
 
     @Override
     public boolean existAny(Object... instances) {
-        for(Object instance:instances){
-            if(exist(instance)){
-                return true;
+        if(null==instances||instances.length==0){
+            return false;
+        }
+        for(Map.Entry<Class,List<Object>> entry:groupByClass(instances).entrySet()){
+            Entity entity = quickDAOConfig.getEntityByClassName(entry.getKey().getName());
+            List<Property> keyProperties = getKeyProperties(entity);
+            if(hasFunction(keyProperties)){
+                for(Object instance:entry.getValue()){
+                    if(exist(instance)){
+                        return true;
+                    }
+                }
+                continue;
+            }
+            List<List<Object>> keyList = new ArrayList<>(getKeyMap(entity, keyProperties, entry.getValue()).keySet());
+            keyList.remove(null);
+            int chunkSize = getKeyChunkSize(keyProperties);
+            for(int i=0;i<keyList.size();i+=chunkSize){
+                if(selectCountByKeyList(entity, keyProperties, keyList.subList(i, Math.min(i+chunkSize, keyList.size())))>0){
+                    return true;
+                }
             }
         }
         return false;
@@ -68,11 +88,40 @@ public class AbstractSQLDAO implements SQLDAO {
 
     @Override
     public boolean existAll(Object... instances) {
+        if(null==instances){
+            return true;
+        }
         for(Object instance:instances){
-            if(!exist(instance)){
+            if(null==instance){
                 return false;
             }
         }
+        for(Map.Entry<Class,List<Object>> entry:groupByClass(instances).entrySet()){
+            Entity entity = quickDAOConfig.getEntityByClassName(entry.getKey().getName());
+            List<Property> keyProperties = getKeyProperties(entity);
+            if(hasFunction(keyProperties)){
+                for(Object instance:entry.getValue()){
+                    if(!exist(instance)){
+                        return false;
+                    }
+                }
+                continue;
+            }
+            Map<List<Object>,List<Object>> keyMap = getKeyMap(entity, keyProperties, entry.getValue());
+            if(keyMap.containsKey(null)){
+                return false;
+            }
+            List<List<Object>> keyList = new ArrayList<>(keyMap.keySet());
+            int chunkSize = getKeyChunkSize(keyProperties);
+            for(int i=0;i<keyList.size();i+=chunkSize){
+                //同一记录可能对应多组键值(如忽略大小写的排序规则),因此逐组判断而不是比较记录条数
+                for(boolean exist:selectExistByKeyList(entity, keyProperties, keyList.subList(i, Math.min(i+chunkSize, keyList.size())))){
+                    if(!exist){
+                        return false;
+                    }
+                }
+            }
+        }
         return true;
     }
 
@@ -85,4 +134,170 @@ public class AbstractSQLDAO implements SQLDAO {
     public boolean existAll(Collection instances) {
         return existAll(instances.toArray());
     }
+
+    /**
+     * 批量判断实例对应的记录是否存在
+     * <p>按唯一性约束或者id分段查询各组键值对应的记录是否存在,每段只执行一次查询,键值比较由数据库完成</p>
+     * @param instances 实例数组
+     * @return 与实例数组下标对应的记录是否存在
+     */
+    protected boolean[] exist(Object[] instances) {
+        Set<Object> existSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Map.Entry<Class,List<Object>> entry:groupByClass(instances).entrySet()){
+            Entity entity = quickDAOConfig.getEntityByClassName(entry.getKey().getName());
+            List<Property> keyProperties = getKeyProperties(entity);
+            if(hasFunction(keyProperties)){
+                //键值属性使用函数时逐条判断
+                for(Object instance:entry.getValue()){
+                    if(exist(instance)){
+                        existSet.add(instance);
+                    }
+                }
+                continue;
+            }
+            Map<List<Object>,List<Object>> keyMap = getKeyMap(entity, keyProperties, entry.getValue());
+            List<List<Object>> keyList = new ArrayList<>(keyMap.keySet());
+            keyList.remove(null);
+            //判断语句中每组键值需要绑定两次
+            int chunkSize = Math.max(1, getKeyChunkSize(keyProperties)/2);
+            int count = 0;
+            for(int i=0;i<keyList.size();i+=chunkSize){
+                List<List<Object>> chunk = keyList.subList(i, Math.min(i+chunkSize, keyList.size()));
+                boolean[] exists = selectExistByKeyList(entity, keyProperties, chunk);
+                for(int j=0;j<exists.length;j++){
+                    if(exists[j]){
+                        existSet.addAll(keyMap.get(chunk.get(j)));
+                        count++;
+                    }
+                }
+            }
+            MDC.put("count",count+"");
+        }
+        boolean[] exists = new boolean[instances.length];
+        for(int i=0;i<instances.length;i++){
+            exists[i] = existSet.contains(instances[i]);
+        }
+        return exists;
+    }
+
+    /**
+     * 获取判断记录是否存在的键值属性,优先使用唯一性约束,其次使用id
+     * @param entity 实体类信息
+     */
+    private static List<Property> getKeyProperties(Entity entity) {
+        if(null!=entity.uniqueKeyProperties&&entity.uniqueKeyProperties.size()>0){
+            return entity.uniqueKeyProperties;
+        }else if(null!=entity.id){
+            return Collections.singletonList(entity.id);
+        }else{
+            throw new IllegalArgumentException("该实例无唯一性约束又无id值,无法判断!类名:"+entity.clazz.getName());
+        }
+    }
+
+    /**键值属性是否使用了函数*/
+    private static boolean hasFunction(List<Property> keyProperties) {
+        for(Property property:keyProperties){
+            if(null!=property.function){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 单条查询语句包含的键值组数
+     * @param keyProperties 键值属性
+     */
+    private int getKeyChunkSize(List<Property> keyProperties) {
+        return Math.max(1, quickDAOConfig.database.getMaxInParameterCount()/keyProperties.size());
+    }
+
+    /**
+     * 按实例类型分组,忽略null实例
+     * @param instances 实例数组
+     */
+    private static Map<Class,List<Object>> groupByClass(Object[] instances) {
+        Map<Class,List<Object>> classMap = new LinkedHashMap<>();
+        for(Object instance:instances){
+            if(null!=instance){
+                classMap.computeIfAbsent(instance.getClass(), k->new ArrayList<>()).add(instance);
+            }
+        }
+        return classMap;
+    }
+
+    /**
+     * 按键值对实例去重
+     * <p>键值包含null的实例不可能存在对应记录,统一放在null键下</p>
+     * @param entity 实体类信息
+     * @param keyProperties 键值属性
+     * @param instanceList 实例列表
+     * @return 键值与实例列表的映射
+     */
+    private static Map<List<Object>,List<Object>> getKeyMap(Entity entity, List<Property> keyProperties, List<Object> instanceList) {
+        PropertyAccessor propertyAccessor = PropertyAccessor.getInstance(entity);
+        Map<List<Object>,List<Object>> keyMap = new LinkedHashMap<>();
+        for(Object instance:instanceList){
+            List<Object> key = new ArrayList<>(keyProperties.size());
+            for(Property property:keyProperties){
+                Object value = propertyAccessor.getValue(instance, property);
+                if(null==value){
+                    key = null;
+                    break;
+                }
+                key.add(value);
+            }
+            keyMap.computeIfAbsent(key, k->new ArrayList<>()).add(instance);
+        }
+        return keyMap;
+    }
+
+    /**
+     * 查询各组键值对应的记录是否存在,键值比较由数据库完成
+     * @param entity 实体类信息
+     * @param keyProperties 键值属性
+     * @param keyList 键值列表
+     * @return 与键值列表下标对应的记录是否存在
+     */
+    private boolean[] selectExistByKeyList(Entity entity, List<Property> keyProperties, List<List<Object>> keyList) {
+        boolean[] exists = new boolean[keyList.size()];
+        try {
+            PreparedStatement ps = sqlBuilder.selectExistByKeyList(entity, keyProperties, keyList);
+            ResultSet resultSet = ps.executeQuery();
+            while (resultSet.next()) {
+                int index = resultSet.getInt(1);
+                if(index<exists.length){
+                    exists[index] = true;
+                }
+            }
+            resultSet.close();
+            ps.close();
+        } catch (Exception e) {
+            throw new SQLRuntimeException(e);
+        }
+        return exists;
+    }
+
+    /**
+     * 查询已存在的记录条数
+     * @param entity 实体类信息
+     * @param keyProperties 键值属性
+     * @param keyList 键值列表
+     */
+    private long selectCountByKeyList(Entity entity, List<Property> keyProperties, List<List<Object>> keyList) {
+        long count = 0;
+        try {
+            PreparedStatement ps = sqlBuilder.selectCountByKeyList(entity, keyProperties, keyList);
+            ResultSet resultSet = ps.executeQuery();
+            if (resultSet.next()) {
+                count = resultSet.getLong(1);
+            }
+            resultSet.close();
+            ps.close();
+        } catch (Exception e) {
+            throw new SQLRuntimeException(e);
+        }
+        MDC.put("count",count+"");
+        return count;
+    }
 }
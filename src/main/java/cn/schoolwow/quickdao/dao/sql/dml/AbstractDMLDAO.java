@@ -3,21 +3,25 @@ package cn.schoolwow.quickdao.dao.sql.dml;
 import cn.schoolwow.quickdao.annotation.IdStrategy;
 import cn.schoolwow.quickdao.builder.dml.AbstractDMLBuilder;
 import cn.schoolwow.quickdao.dao.sql.AbstractSQLDAO;
+import cn.schoolwow.quickdao.domain.Database;
 import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.Property;
 import cn.schoolwow.quickdao.domain.QuickDAOConfig;
 import cn.schoolwow.quickdao.exception.SQLRuntimeException;
+import cn.schoolwow.quickdao.mapper.PropertyAccessor;
+import cn.schoolwow.quickdao.util.QuickDAOUtil;
 import org.slf4j.MDC;
 
-import java.lang.reflect.Field;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
     private AbstractDMLBuilder dmlBuilder;
+    /**是否在事务中执行,事务中批量操作不提交也不回滚*/
+    public boolean transaction;
 
     public AbstractDMLDAO(QuickDAOConfig quickDAOConfig) {
         super(quickDAOConfig);
@@ -38,28 +42,7 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
             if (effect>0&&null!=entity.id&&entity.id.strategy.equals(IdStrategy.AutoIncrement)) {
                 ResultSet rs = ps.getGeneratedKeys();
                 if (rs.next()) {
-                    Field idField = instance.getClass().getDeclaredField(entity.id.name);
-                    idField.setAccessible(true);
-                    switch(idField.getType().getSimpleName().toLowerCase()){
-                        case "int":
-                        case "integer":{
-                            if(idField.getType().isPrimitive()){
-                                idField.setInt(instance,rs.getInt(1));
-                            }else{
-                                idField.set(instance,Integer.valueOf(rs.getInt(1)));
-                            }
-                        }break;
-                        case "long":{
-                            if(idField.getType().isPrimitive()){
-                                idField.setLong(instance,rs.getLong(1));
-                            }else{
-                                idField.set(instance,Long.valueOf(rs.getLong(1)));
-                            }
-                        }break;
-                        case "string":{
-                            idField.set(instance,rs.getString(1));
-                        }break;
-                    }
+                    PropertyAccessor.getInstance(entity).setNumberValue(instance, entity.id, rs.getObject(1));
                 }
                 rs.close();
             }
@@ -76,49 +59,62 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
         if(null==instances||instances.length==0){
             return 0;
         }
-        int effect = 0;
-        try {
-            PreparedStatement[] preparedStatements = dmlBuilder.insert(instances);
-            Entity entity = quickDAOConfig.getEntityByClassName(instances[0].getClass().getName());
-            Field idField = null;
-            if(null!=entity.id&&entity.id.strategy.equals(IdStrategy.AutoIncrement)){
-                idField = instances[0].getClass().getDeclaredField(entity.id.name);
-                idField.setAccessible(true);
+        Entity entity = quickDAOConfig.getEntityByClassName(instances[0].getClass().getName());
+        boolean autoIncrement = null!=entity.id&&entity.id.strategy.equals(IdStrategy.AutoIncrement);
+        if(autoIncrement&&!quickDAOConfig.database.isBatchGeneratedKeysSupported()){
+            return insertEach(instances, entity);
+        }
+        int effect = executeBatch(()->{
+            int rows = 0;
+            PropertyAccessor propertyAccessor = PropertyAccessor.getInstance(entity);
+            for(int from=0;from<instances.length;from+=quickDAOConfig.batchSize){
+                int to = Math.min(from+quickDAOConfig.batchSize, instances.length);
+                PreparedStatement ps = dmlBuilder.insertBatch(instances, from, to, autoIncrement);
+                rows += QuickDAOUtil.getBatchEffect(ps.executeBatch());
+                if(autoIncrement){
+                    //自增id按插入顺序返回
+                    ResultSet rs = ps.getGeneratedKeys();
+                    int index = from;
+                    while(index<to&&rs.next()){
+                        propertyAccessor.setNumberValue(instances[index++], entity.id, rs.getObject(1));
+                    }
+                    rs.close();
+                    if(index<to){
+                        logger.warn("[批量插入自增id回写不完整]应返回{}条,实际返回{}条,表名:{}", to-from, index-from, entity.tableName);
+                    }
+                }
+                ps.close();
             }
+            return rows;
+        });
+        MDC.put("count",effect+"");
+        return effect;
+    }
+
+    /**
+     * 逐条插入并回写自增id,用于不支持批量返回自增id的数据库
+     * @param instances 实例数组
+     * @param entity 实体类信息
+     */
+    private int insertEach(Object[] instances, Entity entity) {
+        int effect = executeBatch(()->{
+            int rows = 0;
+            PreparedStatement[] preparedStatements = dmlBuilder.insert(instances);
+            PropertyAccessor propertyAccessor = PropertyAccessor.getInstance(entity);
             for(int i=0;i<preparedStatements.length;i++){
-                effect += preparedStatements[i].executeUpdate();
-                if(effect>0&&null!=idField){
+                int row = preparedStatements[i].executeUpdate();
+                if(row>0){
                     ResultSet rs = preparedStatements[i].getGeneratedKeys();
                     if(rs.next()){
-                        switch(idField.getType().getSimpleName().toLowerCase()){
-                            case "int":
-                            case "integer":{
-                                if(idField.getType().isPrimitive()){
-                                    idField.setInt(instances[i],rs.getInt(1));
-                                }else{
-                                    idField.set(instances[i],Integer.valueOf(rs.getInt(1)));
-                                }
-                            }break;
-                            case "long":{
-                                if(idField.getType().isPrimitive()){
-                                    idField.setLong(instances[i],rs.getLong(1));
-                                }else{
-                                    idField.set(instances[i],Long.valueOf(rs.getLong(1)));
-                                }
-                            }break;
-                            case "string":{
-                                idField.set(instances[i],rs.getString(1));
-                            }break;
-                        }
+                        propertyAccessor.setNumberValue(instances[i], entity.id, rs.getObject(1));
                     }
                     rs.close();
                 }
+                rows += row;
                 preparedStatements[i].close();
             }
-            dmlBuilder.connection.commit();
-        } catch (Exception e) {
-            throw new SQLRuntimeException(e);
-        }
+            return rows;
+        });
         MDC.put("count",effect+"");
         return effect;
     }
@@ -133,18 +129,16 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
         if(null==instances||instances.length==0){
             return 0;
         }
-        int effect = 0;
-        try {
-            PreparedStatement ps = dmlBuilder.insertBatch(instances);
-            int[] batches = ps.executeBatch();
-            for (int batch : batches) {
-                effect += batch;
+        int effect = executeBatch(()->{
+            int rows = 0;
+            for(int from=0;from<instances.length;from+=quickDAOConfig.batchSize){
+                int to = Math.min(from+quickDAOConfig.batchSize, instances.length);
+                PreparedStatement ps = dmlBuilder.insertBatch(instances, from, to, false);
+                rows += QuickDAOUtil.getBatchEffect(ps.executeBatch());
+                ps.close();
             }
-            ps.close();
-            dmlBuilder.connection.commit();
-        } catch (Exception e) {
-            throw new SQLRuntimeException(e);
-        }
+            return rows;
+        });
         MDC.put("count",effect+"");
         return effect;
     }
@@ -154,6 +148,45 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
         return insertBatch(instanceCollection.toArray(new Object[0]));
     }
 
+    @Override
+    public int insertMultiValues(Object[] instances) {
+        if(null==instances||instances.length==0){
+            return 0;
+        }
+        Entity entity = quickDAOConfig.getEntityByClassName(instances[0].getClass().getName());
+        boolean autoIncrement = null!=entity.id&&entity.id.strategy.equals(IdStrategy.AutoIncrement);
+        boolean returnGeneratedKeys = autoIncrement&&quickDAOConfig.database.isBatchGeneratedKeysSupported();
+        int effect = executeBatch(()->{
+            int rows = 0;
+            long maxPacketSize = getMaxPacketSize();
+            PropertyAccessor propertyAccessor = PropertyAccessor.getInstance(entity);
+            int from = 0;
+            while(from<instances.length){
+                int to = getMultiValuesEnd(instances, from, entity, autoIncrement, maxPacketSize);
+                PreparedStatement ps = dmlBuilder.insertMultiValues(instances, from, to, returnGeneratedKeys);
+                rows += ps.executeUpdate();
+                if(returnGeneratedKeys){
+                    ResultSet rs = ps.getGeneratedKeys();
+                    int index = from;
+                    while(index<to&&rs.next()){
+                        propertyAccessor.setNumberValue(instances[index++], entity.id, rs.getObject(1));
+                    }
+                    rs.close();
+                }
+                ps.close();
+                from = to;
+            }
+            return rows;
+        });
+        MDC.put("count",effect+"");
+        return effect;
+    }
+
+    @Override
+    public int insertMultiValues(Collection instanceCollection) {
+        return insertMultiValues(instanceCollection.toArray(new Object[0]));
+    }
+
     @Override
     public int update(Object instance) {
         if(null==instance){
@@ -164,11 +197,17 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
         Entity entity = quickDAOConfig.getEntityByClassName(instance.getClass().getName());
         try {
             if (entity.uniqueKeyProperties.size()>0&&entity.uniqueKeyProperties.size() + 1 != entity.properties.size()) {
-                ps = dmlBuilder.updateByUniqueKey(instance);
-                effect = ps.executeUpdate();
+                BitSet dirtyMask = getDirtyMask(entity, instance, true);
+                if(null==dirtyMask||!dirtyMask.isEmpty()){
+                    ps = dmlBuilder.updateByUniqueKey(instance, dirtyMask);
+                    effect = ps.executeUpdate();
+                }
             }else if(null!=entity.id){
-                ps = dmlBuilder.updateById(instance);
-                effect = ps.executeUpdate();
+                BitSet dirtyMask = getDirtyMask(entity, instance, false);
+                if(null==dirtyMask||!dirtyMask.isEmpty()){
+                    ps = dmlBuilder.updateById(instance, dirtyMask);
+                    effect = ps.executeUpdate();
+                }
             }else{
                 logger.warn("[忽略更新操作]该实例无唯一性约束又无id,忽略该实例的更新操作!");
             }
@@ -178,6 +217,9 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
         } catch (Exception e) {
             throw new SQLRuntimeException(e);
         }
+        if(effect>0&&null!=entity.dirtyTracker){
+            entity.dirtyTracker.snapshot(instance);
+        }
         MDC.put("count",effect+"");
         return effect;
     }
@@ -187,25 +229,41 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
         if(null==instances||instances.length==0){
             return 0;
         }
-        int effect = 0;
-        PreparedStatement ps = null;
-        try {
-            Entity entity = quickDAOConfig.getEntityByClassName(instances[0].getClass().getName());
-            if(null!=entity.uniqueKeyProperties&&entity.uniqueKeyProperties.size()>0&&entity.uniqueKeyProperties.size() + 1 != entity.properties.size()){
-                //根据唯一性约束更新
-                ps = dmlBuilder.updateByUniqueKey(instances);
-            }else if(null!=entity.id){
-                //根据id更新
-                ps = dmlBuilder.updateById(instances);
+        Entity entity = quickDAOConfig.getEntityByClassName(instances[0].getClass().getName());
+        boolean byUniqueKey = null!=entity.uniqueKeyProperties&&entity.uniqueKeyProperties.size()>0&&entity.uniqueKeyProperties.size() + 1 != entity.properties.size();
+        if(!byUniqueKey&&null==entity.id){
+            throw new IllegalArgumentException("该实例无唯一性约束又无id,无法更新!类名:"+entity.clazz.getName());
+        }
+        //变更字段相同的实例分为一组批量更新
+        Map<BitSet,List<Object>> dirtyMaskMap = new LinkedHashMap<>();
+        if(null==entity.dirtyTracker){
+            dirtyMaskMap.put(null, Arrays.asList(instances));
+        }else{
+            for(Object instance:instances){
+                BitSet dirtyMask = getDirtyMask(entity, instance, byUniqueKey);
+                if(null==dirtyMask||!dirtyMask.isEmpty()){
+                    dirtyMaskMap.computeIfAbsent(dirtyMask, k->new ArrayList<>()).add(instance);
+                }
             }
-            int[] batches = ps.executeBatch();
-            for (int batch : batches) {
-                effect += batch;
+        }
+        int effect = executeBatch(()->{
+            int rows = 0;
+            for(Map.Entry<BitSet,List<Object>> entry:dirtyMaskMap.entrySet()){
+                Object[] group = entry.getValue().toArray();
+                //根据唯一性约束或者id更新
+                PreparedStatement ps = byUniqueKey?dmlBuilder.updateByUniqueKey(group, entry.getKey()):dmlBuilder.updateById(group, entry.getKey());
+                rows += QuickDAOUtil.getBatchEffect(ps.executeBatch());
+                ps.close();
+            }
+            return rows;
+        });
+        //写入成功后再更新快照
+        if(null!=entity.dirtyTracker){
+            for(List<Object> group:dirtyMaskMap.values()){
+                for(Object instance:group){
+                    entity.dirtyTracker.snapshot(instance);
+                }
             }
-            ps.close();
-            dmlBuilder.connection.commit();
-        } catch (Exception e) {
-            throw new SQLRuntimeException(e);
         }
         MDC.put("count",effect+"");
         return effect;
@@ -216,6 +274,65 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
         return update(instanceCollection.toArray(new Object[0]));
     }
 
+    @Override
+    public int upsert(Object instance) {
+        if(null==instance){
+            return 0;
+        }
+        return upsert(new Object[]{instance}, false);
+    }
+
+    @Override
+    public int upsert(Object[] instances) {
+        return upsert(instances, false);
+    }
+
+    @Override
+    public int upsert(Collection instanceCollection) {
+        return upsert(instanceCollection.toArray(new Object[0]), false);
+    }
+
+    @Override
+    public int insertIgnore(Object instance) {
+        if(null==instance){
+            return 0;
+        }
+        return upsert(new Object[]{instance}, true);
+    }
+
+    @Override
+    public int insertIgnore(Object[] instances) {
+        return upsert(instances, true);
+    }
+
+    @Override
+    public int insertIgnore(Collection instanceCollection) {
+        return upsert(instanceCollection.toArray(new Object[0]), true);
+    }
+
+    /**
+     * 插入或更新对象,按批次执行
+     * @param instances 实例数组
+     * @param ignore 记录已存在时是否忽略
+     */
+    private int upsert(Object[] instances, boolean ignore) {
+        if(null==instances||instances.length==0){
+            return 0;
+        }
+        int effect = executeBatch(()->{
+            int rows = 0;
+            for(int from=0;from<instances.length;from+=quickDAOConfig.batchSize){
+                int to = Math.min(from+quickDAOConfig.batchSize, instances.length);
+                PreparedStatement ps = dmlBuilder.upsert(instances, from, to, ignore);
+                rows += QuickDAOUtil.getBatchEffect(ps.executeBatch());
+                ps.close();
+            }
+            return rows;
+        });
+        MDC.put("count",effect+"");
+        return effect;
+    }
+
     @Override
     public int save(Object instance) {
         if(null==instance){
@@ -236,11 +353,12 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
         List insertList = new ArrayList();
         List updateList = new ArrayList();
         int effect = 0;
-        for(Object instance:instances){
-            if(exist(instance)){
-                updateList.add(instance);
+        boolean[] exists = exist(instances);
+        for(int i=0;i<instances.length;i++){
+            if(exists[i]){
+                updateList.add(instances[i]);
             }else{
-                insertList.add(instance);
+                insertList.add(instances[i]);
             }
         }
         effect += update(updateList);
@@ -280,6 +398,39 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
         return effect;
     }
 
+    @Override
+    public int delete(Class clazz, String field, Collection values) {
+        if(null==values||values.isEmpty()){
+            return 0;
+        }
+        List valueList = values instanceof List?(List) values:new ArrayList(values);
+        int chunkSize = quickDAOConfig.database.getMaxInParameterCount();
+        int effect = executeBatch(()->{
+            int rows = 0;
+            for(int i=0;i<valueList.size();i+=chunkSize){
+                PreparedStatement ps = dmlBuilder.deleteInByProperty(clazz, field, valueList.subList(i, Math.min(i+chunkSize, valueList.size())));
+                rows += ps.executeUpdate();
+                ps.close();
+            }
+            return rows;
+        });
+        MDC.put("count",effect+"");
+        return effect;
+    }
+
+    @Override
+    public int deleteByIds(Class clazz, long[] ids) {
+        if(null==ids||ids.length==0){
+            return 0;
+        }
+        Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
+        List<Long> idList = new ArrayList<>(ids.length);
+        for(long id:ids){
+            idList.add(id);
+        }
+        return delete(clazz, entity.id.column, idList);
+    }
+
     @Override
     public int delete(String tableName, String field, Object value) {
         int effect = 0;
@@ -307,4 +458,160 @@ public class AbstractDMLDAO extends AbstractSQLDAO implements DMLDAO{
         MDC.put("count",effect+"");
         return effect;
     }
+
+    @Override
+    public void truncate(Class clazz) {
+        try {
+            PreparedStatement ps = dmlBuilder.truncate(clazz);
+            ps.executeUpdate();
+            ps.close();
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    /**
+     * 获取实例需要更新的属性
+     * <p>只保留可以出现在set子句中的属性,有属性变更时同时更新更新时间字段</p>
+     * @param entity 实体类信息
+     * @param instance 实例
+     * @param byUniqueKey 是否根据唯一性约束更新
+     * @return 未开启变更跟踪或者实例没有快照时返回null,表示更新全部属性
+     */
+    private static BitSet getDirtyMask(Entity entity, Object instance, boolean byUniqueKey) {
+        if(null==entity.dirtyTracker){
+            return null;
+        }
+        BitSet dirtyMask = entity.dirtyTracker.getDirtyMask(instance);
+        if(null==dirtyMask){
+            return null;
+        }
+        for(int i=0;i<entity.properties.size();i++){
+            Property property = entity.properties.get(i);
+            if(property.id||property.createdAt||(byUniqueKey&&property.unique)){
+                dirtyMask.clear(i);
+            }
+        }
+        if(!dirtyMask.isEmpty()){
+            for(int i=0;i<entity.properties.size();i++){
+                if(entity.properties.get(i).updateAt){
+                    dirtyMask.set(i);
+                }
+            }
+        }
+        return dirtyMask;
+    }
+
+    /**
+     * 计算单条多行values插入语句的结束下标
+     * <p>行数不超过batchSize,参数个数不超过数据库限制,MySQL预估语句长度不超过max_allowed_packet</p>
+     * @param instances 实例数组
+     * @param from 起始下标
+     * @param entity 实体类信息
+     * @param autoIncrement 是否为自增id
+     * @param maxPacketSize 数据包最大长度,为0时不限制
+     */
+    private int getMultiValuesEnd(Object[] instances, int from, Entity entity, boolean autoIncrement, long maxPacketSize) {
+        int parameterCount = Math.max(1, entity.properties.size() - (autoIncrement?1:0));
+        int maxRows = Math.min(quickDAOConfig.batchSize, quickDAOConfig.database.getMaxInsertRowCount());
+        maxRows = Math.max(1, Math.min(maxRows, quickDAOConfig.database.getMaxParameterCount()/parameterCount));
+        int to = Math.min(instances.length, from + maxRows);
+        if(maxPacketSize<=0){
+            return to;
+        }
+        PropertyAccessor propertyAccessor = PropertyAccessor.getInstance(entity);
+        long packetSize = 0;
+        for(int i=from;i<to;i++){
+            long rowSize = 3;
+            for(Property property:entity.properties){
+                rowSize += estimateSize(propertyAccessor.getValue(instances[i], property)) + 1;
+            }
+            packetSize += rowSize;
+            if(packetSize>maxPacketSize&&i>from){
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * 预估参数在SQL语句中占用的字节数
+     * @param value 参数值
+     */
+    private static long estimateSize(Object value) {
+        if(null==value){
+            return 4;
+        }
+        if(value instanceof CharSequence){
+            //utf8mb4每个字符最多4个字节,另加转义和引号
+            return ((CharSequence) value).length()*4L + 2;
+        }
+        if(value instanceof byte[]){
+            return ((byte[]) value).length*2L + 3;
+        }
+        return 32;
+    }
+
+    /**
+     * 获取单条语句的数据包最大长度,目前只有MySQL需要限制
+     * @return 数据包最大长度,为0时不限制
+     */
+    private long getMaxPacketSize() throws SQLException {
+        if(!Database.Mysql.equals(quickDAOConfig.database)){
+            return 0;
+        }
+        if(quickDAOConfig.maxAllowedPacket==0){
+            try (PreparedStatement ps = dmlBuilder.connection.prepareStatement("select @@max_allowed_packet");
+                 ResultSet rs = ps.executeQuery()){
+                quickDAOConfig.maxAllowedPacket = rs.next()?rs.getLong(1):4*1024*1024;
+            }
+        }
+        //预留语句模板和估算误差
+        return quickDAOConfig.maxAllowedPacket*9/10;
+    }
+
+    /**
+     * 执行多条语句组成的批量操作,全部成功后提交,任一语句失败时回滚,结束后恢复连接原有的自动提交设置
+     * <p>事务中执行时不提交也不回滚,由事务控制</p>
+     * @param batchOperation 批量操作
+     * @return 影响行数
+     */
+    private int executeBatch(BatchOperation batchOperation) {
+        Connection connection = dmlBuilder.connection;
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            if(!transaction){
+                connection.setAutoCommit(false);
+            }
+            try {
+                int effect = batchOperation.execute();
+                if(!transaction){
+                    connection.commit();
+                }
+                return effect;
+            } catch (Exception e) {
+                if(!transaction){
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if(!transaction){
+                    connection.setAutoCommit(autoCommit);
+                }
+            }
+        } catch (SQLRuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    /**批量操作*/
+    private interface BatchOperation {
+        /**
+         * 执行批量操作
+         * @return 影响行数
+         */
+        int execute() throws Exception;
+    }
 }
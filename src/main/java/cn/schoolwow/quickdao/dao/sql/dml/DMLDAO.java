@@ -36,6 +36,20 @@ public interface DMLDAO {
      */
     int insertBatch(Collection instanceCollection);
 
+    /**
+     * 多行values插入对象数组
+     * <p>按照数据库参数个数和数据包大小限制分批生成insert into t(...) values(...),(...)语句,MySQL,H2和PostgreSQL回写自增id</p>
+     * @param instances 待保存对象数组
+     */
+    int insertMultiValues(Object[] instances);
+
+    /**
+     * 多行values插入对象集合
+     * <p>按照数据库参数个数和数据包大小限制分批生成insert into t(...) values(...),(...)语句,MySQL,H2和PostgreSQL回写自增id</p>
+     * @param instanceCollection 待保存对象集合
+     */
+    int insertMultiValues(Collection instanceCollection);
+
     /**
      * 更新对象
      * 若对象有唯一性约束,则根据唯一性约束更新,否则根据id更新
@@ -90,6 +104,61 @@ public interface DMLDAO {
      */
     int save(Collection instanceCollection);
 
+    /**
+     * <p>插入或更新对象</p>
+     * <p>根据唯一性约束(无唯一性约束时根据非自增id)判断冲突,由数据库原生语句完成,不会预先查询记录是否存在</p>
+     * <ul>
+     *     <li>MySQL:insert ... on duplicate key update</li>
+     *     <li>PostgreSQL,SQLite:insert ... on conflict(...) do update</li>
+     *     <li>H2:merge into ... key(...)</li>
+     *     <li>SQLServer:merge</li>
+     * </ul>
+     * <p>不回写自增id,MySQL更新已存在记录时影响行数计为2</p>
+     * @param instance 待保存对象
+     */
+    int upsert(Object instance);
+
+    /**
+     * <p>插入或更新对象数组,每批执行一次</p>
+     * @param instances 待保存对象数组
+     * @see #upsert(Object)
+     */
+    int upsert(Object[] instances);
+
+    /**
+     * <p>插入或更新对象集合,每批执行一次</p>
+     * @param instanceCollection 待保存对象集合
+     * @see #upsert(Object)
+     */
+    int upsert(Collection instanceCollection);
+
+    /**
+     * <p>插入对象,记录已存在时忽略</p>
+     * <p>根据唯一性约束(无唯一性约束时根据非自增id)判断冲突,适用于幂等写入</p>
+     * <ul>
+     *     <li>MySQL:insert ignore</li>
+     *     <li>PostgreSQL,SQLite:insert ... on conflict(...) do nothing</li>
+     *     <li>H2:insert ... select ... where not exists(...)</li>
+     *     <li>SQLServer:merge ... when not matched then insert</li>
+     * </ul>
+     * @param instance 待插入对象
+     */
+    int insertIgnore(Object instance);
+
+    /**
+     * <p>插入对象数组,记录已存在时忽略,每批执行一次</p>
+     * @param instances 待插入对象数组
+     * @see #insertIgnore(Object)
+     */
+    int insertIgnore(Object[] instances);
+
+    /**
+     * <p>插入对象集合,记录已存在时忽略,每批执行一次</p>
+     * @param instanceCollection 待插入对象集合
+     * @see #insertIgnore(Object)
+     */
+    int insertIgnore(Collection instanceCollection);
+
     /**
      * 根据id删除记录
      * @param clazz 实体类对象,对应数据库中的一张表
@@ -112,6 +181,23 @@ public interface DMLDAO {
      */
     int delete(Class clazz, String field, Object value);
 
+    /**
+     * 根据指定字段值列表删除对象
+     * <p>按数据库单条语句参数个数限制分段生成in查询,在同一事务中执行</p>
+     * @param clazz 实体类对象,对应数据库中的一张表
+     * @param field 指定字段名
+     * @param values 指定字段值列表
+     */
+    int delete(Class clazz, String field, Collection values);
+
+    /**
+     * 根据id列表删除记录
+     * <p>按数据库单条语句参数个数限制分段生成in查询,在同一事务中执行</p>
+     * @param clazz 实体类对象,对应数据库中的一张表
+     * @param ids 待删除记录id列表
+     */
+    int deleteByIds(Class clazz, long[] ids);
+
     /**
      * 根据指定字段值删除数据库记录
      * @param tableName 数据库表名
@@ -125,4 +211,11 @@ public interface DMLDAO {
      * @param clazz 类名,对应数据库中的一张表
      */
     int clear(Class clazz);
+
+    /**
+     * <p>截断表,不逐行删除记录,速度远快于clear方法</p>
+     * <p>SQLite不支持truncate语句,使用delete语句代替.被外键引用的表在部分数据库中无法截断</p>
+     * @param clazz 类名,对应数据库中的一张表
+     */
+    void truncate(Class clazz);
 }
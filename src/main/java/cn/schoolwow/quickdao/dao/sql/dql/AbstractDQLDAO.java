@@ -4,16 +4,22 @@ import cn.schoolwow.quickdao.builder.dql.AbstractDQLBuilder;
 import cn.schoolwow.quickdao.dao.sql.AbstractSQLDAO;
 import cn.schoolwow.quickdao.domain.Entity;
 import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.domain.SQLLog;
 import cn.schoolwow.quickdao.exception.SQLRuntimeException;
+import cn.schoolwow.quickdao.mapper.EntityRowMapper;
+import cn.schoolwow.quickdao.mapper.ResultPlan;
 import cn.schoolwow.quickdao.util.QuickDAOUtil;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import org.slf4j.MDC;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class AbstractDQLDAO extends AbstractSQLDAO implements DQLDAO {
     private AbstractDQLBuilder dqlBuilder;
@@ -49,9 +55,21 @@ public class AbstractDQLDAO extends AbstractSQLDAO implements DQLDAO {
             }
             Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
             ResultSet resultSet = ps.executeQuery();
+            ResultPlan resultPlan = ResultPlan.getInstance(quickDAOConfig, entity, "t", resultSet);
+            EntityRowMapper rowMapper = EntityRowMapper.getInstance(entity);
+            if(rowMapper.isSupported()){
+                List<T> list = new ArrayList<>();
+                while(resultSet.next()){
+                    list.add((T) rowMapper.mapRow(resultSet, resultPlan.columnIndexes));
+                }
+                resultSet.close();
+                ps.close();
+                MDC.put("count",list.size()+"");
+                return list;
+            }
             JSONArray array = new JSONArray();
             while(resultSet.next()){
-                array.add(QuickDAOUtil.getObject(entity, "t",resultSet));
+                array.add(QuickDAOUtil.getObject(entity, resultPlan.columnIndexes, resultSet));
             }
             resultSet.close();
             ps.close();
@@ -62,6 +80,31 @@ public class AbstractDQLDAO extends AbstractSQLDAO implements DQLDAO {
         }
     }
 
+    @Override
+    public <T> List<T> fetchList(Class<T> clazz, String field, Collection values) {
+        List<T> list = new ArrayList<>(values.size());
+        fetchIn(clazz, field, values, list, null);
+        return list;
+    }
+
+    @Override
+    public <K,T> Map<K,T> fetchMap(Class<T> clazz, Collection<K> ids) {
+        Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
+        List<T> list = new ArrayList<>(ids.size());
+        List<Object> keyList = new ArrayList<>(ids.size());
+        fetchIn(clazz, entity.id.name, ids, list, keyList);
+        //数据库返回的id类型可能与传入的id类型不一致,统一按字符串匹配
+        Map<String,K> idMap = new HashMap<>(ids.size()*4/3+1);
+        for(K id:ids){
+            idMap.put(String.valueOf(id), id);
+        }
+        Map<K,T> map = new LinkedHashMap<>(list.size()*4/3+1);
+        for(int i=0;i<list.size();i++){
+            map.put(idMap.get(String.valueOf(keyList.get(i))), list.get(i));
+        }
+        return map;
+    }
+
     @Override
     public JSONObject fetch(String tableName, String field, Object value) {
         JSONArray array = fetchList(tableName,field,value);
@@ -82,9 +125,10 @@ public class AbstractDQLDAO extends AbstractSQLDAO implements DQLDAO {
             }
             Entity dbEntity = quickDAOConfig.getDbEntityByTableName(tableName);
             ResultSet resultSet = ps.executeQuery();
+            ResultPlan resultPlan = ResultPlan.getInstance(quickDAOConfig, dbEntity, "t", resultSet);
             JSONArray array = new JSONArray();
             while(resultSet.next()){
-                array.add(QuickDAOUtil.getObject(dbEntity, "t",resultSet));
+                array.add(QuickDAOUtil.getObject(dbEntity, resultPlan.columnIndexes, resultSet));
             }
             resultSet.close();
             ps.close();
@@ -94,4 +138,100 @@ public class AbstractDQLDAO extends AbstractSQLDAO implements DQLDAO {
             throw new SQLRuntimeException(e);
         }
     }
+
+    /**
+     * 根据字段值列表分段查询
+     * @param clazz 实例类对象
+     * @param field 指定字段名
+     * @param values 字段值列表
+     * @param list 查询结果
+     * @param keyList 各条查询结果的字段值,为null时不读取
+     */
+    private <T> void fetchIn(Class<T> clazz, String field, Collection values, List<T> list, List<Object> keyList) {
+        if(null==values||values.isEmpty()){
+            return;
+        }
+        Entity entity = quickDAOConfig.getEntityByClassName(clazz.getName());
+        List valueList = values instanceof List?(List) values:new ArrayList(values);
+        int chunkSize = quickDAOConfig.database.getMaxInParameterCount();
+        List<Future<List[]>> futureList = new ArrayList<>();
+        try {
+            if(quickDAOConfig.parallelFetch){
+                for(int i=chunkSize;i<valueList.size();i+=chunkSize){
+                    List chunk = valueList.subList(i, Math.min(i+chunkSize, valueList.size()));
+                    futureList.add(quickDAOConfig.getExecutorService().submit(()->{
+                        AbstractDQLBuilder chunkDQLBuilder = quickDAOConfig.database.getDQLBuilderInstance(quickDAOConfig);
+                        try (Connection connection = quickDAOConfig.dataSource.getConnection()){
+                            chunkDQLBuilder.connection = connection;
+                            List<T> chunkList = new ArrayList<>(chunk.size());
+                            List<Object> chunkKeyList = null==keyList?null:new ArrayList<>(chunk.size());
+                            fetchInChunk(chunkDQLBuilder, entity, clazz, field, chunk, chunkList, chunkKeyList);
+                            return new List[]{chunkList, chunkKeyList};
+                        }finally {
+                            MDC.clear();
+                            SQLLog.clear();
+                        }
+                    }));
+                }
+                fetchInChunk(dqlBuilder, entity, clazz, field, valueList.subList(0, Math.min(chunkSize, valueList.size())), list, keyList);
+                for(Future<List[]> future:futureList){
+                    List[] result = future.get();
+                    list.addAll(result[0]);
+                    if(null!=keyList){
+                        keyList.addAll(result[1]);
+                    }
+                }
+            }else{
+                for(int i=0;i<valueList.size();i+=chunkSize){
+                    fetchInChunk(dqlBuilder, entity, clazz, field, valueList.subList(i, Math.min(i+chunkSize, valueList.size())), list, keyList);
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLRuntimeException(e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SQLRuntimeException(e.getCause());
+        } finally {
+            for(Future<List[]> future:futureList){
+                future.cancel(true);
+            }
+        }
+        MDC.put("count",list.size()+"");
+    }
+
+    /**
+     * 执行单个分段查询
+     * @param dqlBuilder 查询语句构建对象
+     * @param entity 实体类信息
+     * @param clazz 实例类对象
+     * @param field 指定字段名
+     * @param values 字段值列表
+     * @param list 查询结果
+     * @param keyList 各条查询结果的字段值,为null时不读取
+     */
+    private static <T> void fetchInChunk(AbstractDQLBuilder dqlBuilder, Entity entity, Class<T> clazz, String field, List values, List<T> list, List<Object> keyList) throws SQLException {
+        PreparedStatement ps = dqlBuilder.fetchIn(clazz, field, values);
+        ResultSet resultSet = ps.executeQuery();
+        ResultPlan resultPlan = ResultPlan.getInstance(dqlBuilder.quickDAOConfig, entity, "t", resultSet);
+        int keyColumnIndex = null==keyList?0:resultPlan.columnIndexes[entity.properties.indexOf(entity.getPropertyByFieldName(field))];
+        EntityRowMapper rowMapper = EntityRowMapper.getInstance(entity);
+        boolean supported = rowMapper.isSupported();
+        while(resultSet.next()){
+            if(supported){
+                list.add((T) rowMapper.mapRow(resultSet, resultPlan.columnIndexes));
+            }else{
+                list.add(QuickDAOUtil.getObject(entity, resultPlan.columnIndexes, resultSet).toJavaObject(clazz));
+            }
+            if(null!=keyList){
+                keyList.add(resultSet.getObject(keyColumnIndex));
+            }
+        }
+        resultSet.close();
+        ps.close();
+    }
 }
@@ -3,7 +3,9 @@ package cn.schoolwow.quickdao.dao.sql.dql;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 负责数据简单查询操作
@@ -32,6 +34,24 @@ public interface DQLDAO {
      */
     <T> List<T> fetchList(Class<T> clazz, String field, Object value);
 
+    /**
+     * 根据属性值列表查询多个记录
+     * <p>值列表超出数据库单条语句参数个数限制时会分段查询</p>
+     * @param clazz 实例类对象
+     * @param field 指定字段名
+     * @param values 字段值列表
+     */
+    <T> List<T> fetchList(Class<T> clazz, String field, Collection values);
+
+    /**
+     * 根据id列表查询实例
+     * <p>id列表超出数据库单条语句参数个数限制时会分段查询</p>
+     * @param clazz 实例类对象
+     * @param ids 待查询id列表
+     * @return id与实例的映射,数据库中不存在的id不包含在内
+     */
+    <K,T> Map<K,T> fetchMap(Class<T> clazz, Collection<K> ids);
+
     /**
      * 根据属性查询单个记录
      * @param tableName 表名
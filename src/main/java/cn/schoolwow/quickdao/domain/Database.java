@@ -54,6 +54,68 @@ public enum Database {
         return value;
     }
 
+    /**返回单条in查询语句的最大参数个数*/
+    public int getMaxInParameterCount(){
+        switch (this){
+            //SQLite默认最多999个参数
+            case SQLite:{
+                return 999;
+            }
+            //SQLServer最多2100个参数
+            case SQLServer:{
+                return 2000;
+            }
+            default:{
+                return 1000;
+            }
+        }
+    }
+
+    /**返回单条语句的最大参数个数*/
+    public int getMaxParameterCount(){
+        switch (this){
+            //SQLite 3.32.0之前最多999个参数
+            case SQLite:{
+                return 999;
+            }
+            //SQLServer最多2100个参数,驱动调用sp_prepexec时会额外占用参数
+            case SQLServer:{
+                return 2000;
+            }
+            default:{
+                return 32767;
+            }
+        }
+    }
+
+    /**返回单条多行values插入语句的最大行数*/
+    public int getMaxInsertRowCount(){
+        switch (this){
+            //SQLServer的values子句最多1000行
+            case SQLServer:{
+                return 1000;
+            }
+            default:{
+                return Integer.MAX_VALUE;
+            }
+        }
+    }
+
+    /**批量执行插入语句或者多行values插入后是否能够返回每一行的自增id*/
+    public boolean isBatchGeneratedKeysSupported(){
+        switch (this){
+            case Mysql:
+            case H2:
+            case Postgre:{
+                return true;
+            }
+            //SQLite只返回最后一行的id,SQLServer驱动不支持批量返回自增id
+            default:{
+                return false;
+            }
+        }
+    }
+
     /**获取Condition实例*/
     public Condition getConditionInstance(Query query){
         switch(this){
@@ -1,5 +1,9 @@
 package cn.schoolwow.quickdao.domain;
 
+import cn.schoolwow.quickdao.mapper.DirtyTracker;
+import cn.schoolwow.quickdao.mapper.EntityRowMapper;
+import cn.schoolwow.quickdao.mapper.PropertyAccessor;
+
 import java.lang.reflect.Field;
 import java.util.List;
 import java.util.Objects;
@@ -64,6 +68,18 @@ public class Entity {
      * 表引擎
      * */
     public String engine;
+    /**
+     * 结果集映射器
+     * */
+    public volatile EntityRowMapper rowMapper;
+    /**
+     * 属性访问器
+     * */
+    public volatile PropertyAccessor propertyAccessor;
+    /**
+     * 变更跟踪器,未开启变更跟踪时为null
+     * */
+    public volatile DirtyTracker dirtyTracker;
 
     /**
      * 根据字段名查询数据库列名,只返回列名
@@ -17,6 +17,8 @@ public class PageVo<T> implements Serializable {
     private int currentPage;
     /**是否还有下一页*/
     private boolean hasMore;
+    /**keyset分页下一页游标,没有下一页时为null*/
+    private String cursor;
 
     public List<T> getList() {
         return list;
@@ -65,4 +67,12 @@ public class PageVo<T> implements Serializable {
     public void setHasMore(boolean hasMore) {
         this.hasMore = hasMore;
     }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
 }
@@ -0,0 +1,14 @@
+package cn.schoolwow.quickdao.domain;
+
+/**分页查询总记录数获取方式*/
+public enum PagingMode {
+    /**查询分页数据后再执行count查询*/
+    Count,
+    /**
+     * 在分页查询中通过窗口函数count(*) over()同时返回总记录数
+     * <p>需要数据库支持窗口函数(H2,PostgreSQL,MySQL 8,SQLite 3.25及以上版本,SQL Server)</p>
+     * */
+    WindowFunction,
+    /**使用另一个数据库连接并发执行count查询*/
+    ConcurrentCount;
+}
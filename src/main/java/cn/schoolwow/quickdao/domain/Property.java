@@ -2,6 +2,7 @@ package cn.schoolwow.quickdao.domain;
 
 import cn.schoolwow.quickdao.annotation.ForeignKey;
 import cn.schoolwow.quickdao.annotation.IdStrategy;
+import cn.schoolwow.quickdao.domain.codec.TypeCodec;
 
 /**
  * 实体类属性信息
@@ -27,6 +28,10 @@ public class Property {
      * 类型名
      */
     public String simpleTypeName;
+    /**
+     * 类型转换器,为null时按照setObject和getObject处理
+     */
+    public TypeCodec typeCodec;
     /**
      * 类名
      */
@@ -69,6 +69,14 @@ public class Query implements Serializable,Cloneable {
      * 分页
      */
     public String limit = "";
+    /**
+     * 分页返回个数
+     */
+    public long limitCount;
+    /**
+     * 列表查询前是否先查询结果集行数
+     */
+    public boolean preCount;
     /**
      * 是否返回复杂属性
      */
@@ -121,6 +129,42 @@ public class Query implements Serializable,Cloneable {
      * 分页对象
      * */
     public PageVo pageVo;
+    /**
+     * 分页查询总记录数获取方式,为null时使用全局配置
+     * */
+    public PagingMode pagingMode;
+    /**
+     * keyset分页字段
+     * */
+    public String[] seekFields;
+    /**
+     * keyset分页字段对应列名
+     * */
+    public String[] seekColumns;
+    /**
+     * keyset分页起始位置,即上一页最后一条记录的分页字段值
+     * */
+    public Object[] seekValues;
+    /**
+     * 分区扫描范围列名
+     * */
+    public String rangeColumn;
+    /**
+     * 分区扫描范围,依次为起始值和结束值
+     * */
+    public Object[] rangeValues;
+    /**
+     * 分区扫描范围是否包含结束值
+     * */
+    public boolean rangeEndInclusive;
+    /**
+     * 查询列表时是否附加窗口函数总记录数列
+     * */
+    public boolean windowCount;
+    /**
+     * 游标读取时每次从数据库获取的行数
+     * */
+    public int fetchSize = 1000;
     /**
      * 关联子查询
      */
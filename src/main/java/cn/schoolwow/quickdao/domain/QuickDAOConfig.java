@@ -2,9 +2,12 @@ package cn.schoolwow.quickdao.domain;
 
 import cn.schoolwow.quickdao.annotation.IdStrategy;
 import cn.schoolwow.quickdao.dao.DAO;
+import cn.schoolwow.quickdao.dao.buffer.WriteBehindBuffer;
+import cn.schoolwow.quickdao.domain.codec.TypeCodecRegistry;
 import cn.schoolwow.quickdao.domain.generator.IDGenerator;
 import cn.schoolwow.quickdao.domain.generator.SnowflakeIdGenerator;
 import cn.schoolwow.quickdao.handler.EntityHandler;
+import cn.schoolwow.quickdao.mapper.ResultPlan;
 
 import javax.sql.DataSource;
 import java.util.ArrayList;
@@ -12,6 +15,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 
 /**数据源访问配置选项*/
@@ -61,6 +66,10 @@ public class QuickDAOConfig {
      * 默认生成器为雪花算法生成器
      */
     public IDGenerator idGenerator = new SnowflakeIdGenerator();
+    /**
+     * 类型转换器注册表
+     */
+    public TypeCodecRegistry typeCodecRegistry = new TypeCodecRegistry();
     /**
      * 当前数据库名称
      */
@@ -81,6 +90,10 @@ public class QuickDAOConfig {
      * SQL语句缓存
      * */
     public final ConcurrentHashMap<String,String> sqlCache = new ConcurrentHashMap();
+    /**
+     * 结果集读取计划缓存
+     * */
+    public final ConcurrentHashMap<String, ResultPlan> resultPlanCache = new ConcurrentHashMap();
     /**
      * 数据库获取的表信息
      * */
@@ -109,6 +122,91 @@ public class QuickDAOConfig {
      * 拦截器
      * */
     public List<Interceptor> interceptorList = new ArrayList<>();
+    /**
+     * 分页查询总记录数获取方式
+     * */
+    public PagingMode pagingMode = PagingMode.Count;
+    /**
+     * 批量查询时是否使用多个数据库连接并发查询各分段
+     * */
+    public boolean parallelFetch;
+    /**
+     * 是否在后台线程中输出SQL日志
+     * */
+    public boolean asyncLog;
+    /**
+     * 批量操作SQL日志最多记录的条数
+     * */
+    public int maxLogBatchCount = 10;
+    /**
+     * 批量插入时每批次执行的记录数
+     * */
+    public int batchSize = 1000;
+    /**
+     * MySQL数据包最大长度(max_allowed_packet),为0时表示尚未获取
+     * */
+    public volatile long maxAllowedPacket;
+    /**
+     * 是否开启变更跟踪,开启后更新查询得到的实例时只更新已变更的字段
+     * */
+    public boolean dirtyTracking;
+    /**
+     * 异步写缓冲最多缓存的操作个数,达到上限时调用线程阻塞
+     * */
+    public int writeBehindCapacity = 10000;
+    /**
+     * 异步写缓冲达到该操作个数时刷新
+     * */
+    public int writeBehindFlushSize = 1000;
+    /**
+     * 异步写缓冲刷新间隔(毫秒)
+     * */
+    public long writeBehindFlushInterval = 1000;
+    /**
+     * 实体类与异步写缓冲的映射
+     * */
+    public final Map<Class, WriteBehindBuffer> writeBehindBufferMap = new ConcurrentHashMap<>();
+    /**
+     * 异步任务线程池
+     * */
+    public volatile ExecutorService executorService;
+
+    /**
+     * SQL日志输出线程
+     * */
+    private volatile ExecutorService logExecutorService;
+
+    /**获取异步任务线程池,未指定时创建默认线程池*/
+    public ExecutorService getExecutorService(){
+        if(null==executorService){
+            synchronized (this){
+                if(null==executorService){
+                    executorService = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "quickdao-worker");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executorService;
+    }
+
+    /**获取SQL日志输出线程*/
+    public ExecutorService getLogExecutorService(){
+        if(null==logExecutorService){
+            synchronized (this){
+                if(null==logExecutorService){
+                    logExecutorService = Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "quickdao-log");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return logExecutorService;
+    }
 
     /**根据类名获取实体类信息*/
     public Entity getEntityByClassName(String className){
@@ -0,0 +1,230 @@
+package cn.schoolwow.quickdao.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL日志
+ * <p>只保存SQL语句模板和参数引用,在输出日志或者调用拦截器时才拼接完整SQL语句.</p>
+ * <p>批量操作只记录前{@link QuickDAOConfig#maxLogBatchCount}条记录的参数</p>
+ */
+public class SQLLog {
+    /**当前线程最近一次执行的SQL日志*/
+    private static final ThreadLocal<SQLLog> currentSQLLog = new ThreadLocal<>();
+    /**格式化日期参数*/
+    private final static DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss:SSS");
+    /**格式化日期参数*/
+    private final static DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /**SQL语句模板*/
+    private String sql;
+    /**参数列表*/
+    private List<Object> parameterList = new ArrayList<>();
+    /**批量操作记录条数*/
+    private int batchCount;
+    /**批量操作最多记录参数的条数*/
+    private int maxBatchCount;
+    /**拼接后的SQL语句*/
+    private String renderSQL;
+
+    /**
+     * @param sql SQL语句模板
+     */
+    public SQLLog(String sql) {
+        this(sql, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param sql SQL语句模板
+     * @param maxBatchCount 批量操作最多记录参数的条数
+     */
+    public SQLLog(String sql, int maxBatchCount) {
+        this.sql = sql;
+        this.maxBatchCount = maxBatchCount;
+    }
+
+    /**
+     * 添加参数
+     * @param parameter 参数
+     */
+    public SQLLog addParameter(Object parameter) {
+        if(batchCount<maxBatchCount){
+            parameterList.add(parameter);
+        }
+        return this;
+    }
+
+    /**
+     * 添加依次绑定到连续占位符的long数组参数
+     * <p>只保存数组引用,拼接SQL语句时再展开</p>
+     * @param parameters 参数数组
+     */
+    public SQLLog addParameters(long[] parameters) {
+        if(parameters.length>0){
+            addParameter(parameters);
+        }
+        return this;
+    }
+
+    /**结束一条批量操作记录*/
+    public void addBatch() {
+        batchCount++;
+    }
+
+    /**
+     * 设置当前线程的SQL日志
+     * @param sqlLog SQL日志
+     */
+    public static void set(SQLLog sqlLog) {
+        currentSQLLog.set(sqlLog);
+    }
+
+    /**清除当前线程的SQL日志*/
+    public static void clear() {
+        currentSQLLog.remove();
+    }
+
+    /**获取当前线程最近一次执行的SQL语句*/
+    public static String getSQL() {
+        SQLLog sqlLog = currentSQLLog.get();
+        if(null==sqlLog){
+            return MDC.get("sql");
+        }
+        return sqlLog.toString();
+    }
+
+    /**
+     * 输出执行日志并调用拦截器
+     * @param logger 日志对象
+     * @param quickDAOConfig 配置信息
+     * @param elapsed 执行耗时
+     */
+    public static void logExecution(Logger logger, QuickDAOConfig quickDAOConfig, long elapsed) {
+        String name = MDC.get("name");
+        if (null != name && logger.isDebugEnabled()) {
+            String count = MDC.get("count");
+            if(quickDAOConfig.asyncLog){
+                SQLLog sqlLog = currentSQLLog.get();
+                String sql = null==sqlLog?MDC.get("sql"):null;
+                quickDAOConfig.getLogExecutorService().execute(()->{
+                    logExecution(logger, name, count, elapsed, null==sqlLog?sql:sqlLog.toString());
+                });
+            }else{
+                logExecution(logger, name, count, elapsed, getSQL());
+            }
+        }
+        if(!quickDAOConfig.interceptorList.isEmpty()){
+            String sql = getSQL();
+            for(Interceptor interceptor:quickDAOConfig.interceptorList){
+                interceptor.afterExecuteConnection(name,sql);
+            }
+        }
+    }
+
+    /**
+     * 输出执行失败日志并调用拦截器
+     * @param logger 日志对象
+     * @param quickDAOConfig 配置信息
+     */
+    public static void logFailure(Logger logger, QuickDAOConfig quickDAOConfig) {
+        String name = MDC.get("name");
+        String sql = null==name&&quickDAOConfig.interceptorList.isEmpty()?null:getSQL();
+        if (null != name) {
+            logger.warn("[{}]原始SQL:{}", name, sql);
+        }
+        for(Interceptor interceptor:quickDAOConfig.interceptorList){
+            interceptor.afterExecuteConnection(name,sql);
+        }
+    }
+
+    private static void logExecution(Logger logger, String name, String count, long elapsed, String sql) {
+        if (null == count) {
+            logger.debug("[{}]耗时:{}ms,执行SQL:{}", name, elapsed, sql);
+        } else {
+            logger.debug("[{}]行数:{},耗时:{}ms,执行SQL:{}", name, count, elapsed, sql);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if(null==renderSQL){
+            renderSQL = render();
+        }
+        return renderSQL;
+    }
+
+    /**拼接SQL语句*/
+    private String render() {
+        int rows = batchCount==0?1:Math.min(batchCount, maxBatchCount);
+        StringBuilder builder = new StringBuilder(sql.length()*rows + parameterList.size()*8);
+        int parameterIndex = 0;
+        //long数组参数中下一个元素的下标
+        int arrayIndex = 0;
+        for(int row=0;row<rows;row++){
+            for(int i=0;i<sql.length();i++){
+                char c = sql.charAt(i);
+                if(c=='?'&&parameterIndex<parameterList.size()){
+                    Object parameter = parameterList.get(parameterIndex);
+                    if(parameter instanceof long[]){
+                        long[] values = (long[]) parameter;
+                        builder.append(values[arrayIndex++]);
+                        if(arrayIndex==values.length){
+                            arrayIndex = 0;
+                            parameterIndex++;
+                        }
+                    }else{
+                        builder.append(format(parameter));
+                        parameterIndex++;
+                    }
+                }else{
+                    builder.append(c);
+                }
+            }
+            if(batchCount>0){
+                builder.append(";");
+            }
+        }
+        if(batchCount>maxBatchCount){
+            builder.append("...共" + batchCount + "条");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 格式化参数
+     * @param parameter 参数
+     */
+    private static String format(Object parameter) {
+        if(null==parameter){
+            return "null";
+        }
+        if(parameter instanceof Boolean){
+            return ((Boolean) parameter)?"1":"0";
+        }
+        if(parameter instanceof Number){
+            return parameter.toString();
+        }
+        if(parameter instanceof java.sql.Date){
+            return "'" + dateFormatter.format(((java.sql.Date) parameter).toLocalDate()) + "'";
+        }
+        if(parameter instanceof java.util.Date){
+            LocalDateTime localDateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(((java.util.Date) parameter).getTime()), ZoneId.systemDefault());
+            return "'" + dateTimeFormatter.format(localDateTime) + "'";
+        }
+        if(parameter instanceof LocalDate){
+            return "'" + dateFormatter.format((LocalDate) parameter) + "'";
+        }
+        if(parameter instanceof LocalDateTime){
+            return "'" + dateTimeFormatter.format((LocalDateTime) parameter) + "'";
+        }
+        return "'" + parameter + "'";
+    }
+}
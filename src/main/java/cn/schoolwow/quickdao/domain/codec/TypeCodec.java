@@ -0,0 +1,147 @@
+package cn.schoolwow.quickdao.domain.codec;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 类型转换器
+ * <p>负责实体类属性类型与JDBC类型之间的相互转换,在扫描实体类时为每个属性确定一次</p>
+ * @param <T> 属性类型
+ */
+public interface TypeCodec<T> {
+    /**
+     * 设置参数
+     * @param ps SQL语句对象
+     * @param parameterIndex 参数索引
+     * @param value 参数值,可能为null
+     */
+    void bind(PreparedStatement ps, int parameterIndex, T value) throws SQLException;
+
+    /**
+     * 读取列值
+     * @param resultSet 结果集
+     * @param columnIndex 列下标
+     * @return 列值,数据库值为null时返回null
+     */
+    T read(ResultSet resultSet, int columnIndex) throws SQLException;
+
+    /**
+     * 建表时使用的类型映射名称,对应{@link cn.schoolwow.quickdao.domain.QuickDAOConfig#fieldMapping}的键
+     * <p>返回null时使用属性类型名</p>
+     */
+    default String getFieldMappingName() {
+        return null;
+    }
+
+    /**int类型转换器*/
+    interface IntCodec extends TypeCodec<Integer> {
+        void bindInt(PreparedStatement ps, int parameterIndex, int value) throws SQLException;
+
+        int readInt(ResultSet resultSet, int columnIndex) throws SQLException;
+
+        @Override
+        default void bind(PreparedStatement ps, int parameterIndex, Integer value) throws SQLException {
+            if(null==value){
+                ps.setNull(parameterIndex, Types.INTEGER);
+            }else{
+                bindInt(ps, parameterIndex, value);
+            }
+        }
+
+        @Override
+        default Integer read(ResultSet resultSet, int columnIndex) throws SQLException {
+            int value = readInt(resultSet, columnIndex);
+            return resultSet.wasNull()?null:value;
+        }
+    }
+
+    /**long类型转换器*/
+    interface LongCodec extends TypeCodec<Long> {
+        void bindLong(PreparedStatement ps, int parameterIndex, long value) throws SQLException;
+
+        long readLong(ResultSet resultSet, int columnIndex) throws SQLException;
+
+        @Override
+        default void bind(PreparedStatement ps, int parameterIndex, Long value) throws SQLException {
+            if(null==value){
+                ps.setNull(parameterIndex, Types.BIGINT);
+            }else{
+                bindLong(ps, parameterIndex, value);
+            }
+        }
+
+        @Override
+        default Long read(ResultSet resultSet, int columnIndex) throws SQLException {
+            long value = readLong(resultSet, columnIndex);
+            return resultSet.wasNull()?null:value;
+        }
+    }
+
+    /**float类型转换器*/
+    interface FloatCodec extends TypeCodec<Float> {
+        void bindFloat(PreparedStatement ps, int parameterIndex, float value) throws SQLException;
+
+        float readFloat(ResultSet resultSet, int columnIndex) throws SQLException;
+
+        @Override
+        default void bind(PreparedStatement ps, int parameterIndex, Float value) throws SQLException {
+            if(null==value){
+                ps.setNull(parameterIndex, Types.REAL);
+            }else{
+                bindFloat(ps, parameterIndex, value);
+            }
+        }
+
+        @Override
+        default Float read(ResultSet resultSet, int columnIndex) throws SQLException {
+            float value = readFloat(resultSet, columnIndex);
+            return resultSet.wasNull()?null:value;
+        }
+    }
+
+    /**double类型转换器*/
+    interface DoubleCodec extends TypeCodec<Double> {
+        void bindDouble(PreparedStatement ps, int parameterIndex, double value) throws SQLException;
+
+        double readDouble(ResultSet resultSet, int columnIndex) throws SQLException;
+
+        @Override
+        default void bind(PreparedStatement ps, int parameterIndex, Double value) throws SQLException {
+            if(null==value){
+                ps.setNull(parameterIndex, Types.DOUBLE);
+            }else{
+                bindDouble(ps, parameterIndex, value);
+            }
+        }
+
+        @Override
+        default Double read(ResultSet resultSet, int columnIndex) throws SQLException {
+            double value = readDouble(resultSet, columnIndex);
+            return resultSet.wasNull()?null:value;
+        }
+    }
+
+    /**boolean类型转换器*/
+    interface BooleanCodec extends TypeCodec<Boolean> {
+        void bindBoolean(PreparedStatement ps, int parameterIndex, boolean value) throws SQLException;
+
+        boolean readBoolean(ResultSet resultSet, int columnIndex) throws SQLException;
+
+        @Override
+        default void bind(PreparedStatement ps, int parameterIndex, Boolean value) throws SQLException {
+            if(null==value){
+                ps.setNull(parameterIndex, Types.BOOLEAN);
+            }else{
+                bindBoolean(ps, parameterIndex, value);
+            }
+        }
+
+        @Override
+        default Boolean read(ResultSet resultSet, int columnIndex) throws SQLException {
+            boolean value = readBoolean(resultSet, columnIndex);
+            return resultSet.wasNull()?null:value;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package cn.schoolwow.quickdao.domain.codec;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类型转换器注册表
+ * <p>内置基本类型,String,日期类型,枚举,UUID,BigDecimal和byte[]的转换器,可通过{@link cn.schoolwow.quickdao.QuickDAO#typeCodec(Class, TypeCodec)}注册自定义转换器</p>
+ */
+public class TypeCodecRegistry {
+    private static final TypeCodec.IntCodec INT_CODEC = new TypeCodec.IntCodec() {
+        @Override
+        public void bindInt(PreparedStatement ps, int parameterIndex, int value) throws SQLException {
+            ps.setInt(parameterIndex, value);
+        }
+
+        @Override
+        public int readInt(ResultSet resultSet, int columnIndex) throws SQLException {
+            return resultSet.getInt(columnIndex);
+        }
+    };
+
+    private static final TypeCodec.LongCodec LONG_CODEC = new TypeCodec.LongCodec() {
+        @Override
+        public void bindLong(PreparedStatement ps, int parameterIndex, long value) throws SQLException {
+            ps.setLong(parameterIndex, value);
+        }
+
+        @Override
+        public long readLong(ResultSet resultSet, int columnIndex) throws SQLException {
+            return resultSet.getLong(columnIndex);
+        }
+    };
+
+    private static final TypeCodec.FloatCodec FLOAT_CODEC = new TypeCodec.FloatCodec() {
+        @Override
+        public void bindFloat(PreparedStatement ps, int parameterIndex, float value) throws SQLException {
+            ps.setFloat(parameterIndex, value);
+        }
+
+        @Override
+        public float readFloat(ResultSet resultSet, int columnIndex) throws SQLException {
+            return resultSet.getFloat(columnIndex);
+        }
+    };
+
+    private static final TypeCodec.DoubleCodec DOUBLE_CODEC = new TypeCodec.DoubleCodec() {
+        @Override
+        public void bindDouble(PreparedStatement ps, int parameterIndex, double value) throws SQLException {
+            ps.setDouble(parameterIndex, value);
+        }
+
+        @Override
+        public double readDouble(ResultSet resultSet, int columnIndex) throws SQLException {
+            return resultSet.getDouble(columnIndex);
+        }
+    };
+
+    private static final TypeCodec.BooleanCodec BOOLEAN_CODEC = new TypeCodec.BooleanCodec() {
+        @Override
+        public void bindBoolean(PreparedStatement ps, int parameterIndex, boolean value) throws SQLException {
+            ps.setBoolean(parameterIndex, value);
+        }
+
+        @Override
+        public boolean readBoolean(ResultSet resultSet, int columnIndex) throws SQLException {
+            return resultSet.getBoolean(columnIndex);
+        }
+    };
+
+    private static final TypeCodec<String> STRING_CODEC = new TypeCodec<String>() {
+        @Override
+        public void bind(PreparedStatement ps, int parameterIndex, String value) throws SQLException {
+            ps.setString(parameterIndex, value);
+        }
+
+        @Override
+        public String read(ResultSet resultSet, int columnIndex) throws SQLException {
+            return resultSet.getString(columnIndex);
+        }
+    };
+
+    private static final TypeCodec<java.util.Date> DATE_CODEC = new TypeCodec<java.util.Date>() {
+        @Override
+        public void bind(PreparedStatement ps, int parameterIndex, java.util.Date value) throws SQLException {
+            ps.setTimestamp(parameterIndex, null==value?null:new Timestamp(value.getTime()));
+        }
+
+        @Override
+        public java.util.Date read(ResultSet resultSet, int columnIndex) throws SQLException {
+            Timestamp timestamp = resultSet.getTimestamp(columnIndex);
+            return null==timestamp?null:new java.util.Date(timestamp.getTime());
+        }
+    };
+
+    private static final TypeCodec<Date> SQL_DATE_CODEC = new TypeCodec<Date>() {
+        @Override
+        public void bind(PreparedStatement ps, int parameterIndex, Date value) throws SQLException {
+            ps.setDate(parameterIndex, value);
+        }
+
+        @Override
+        public Date read(ResultSet resultSet, int columnIndex) throws SQLException {
+            return resultSet.getDate(columnIndex);
+        }
+    };
+
+    private static final TypeCodec<Timestamp> TIMESTAMP_CODEC = new TypeCodec<Timestamp>() {
+        @Override
+        public void bind(PreparedStatement ps, int parameterIndex, Timestamp value) throws SQLException {
+            ps.setTimestamp(parameterIndex, value);
+        }
+
+        @Override
+        public Timestamp read(ResultSet resultSet, int columnIndex) throws SQLException {
+            return resultSet.getTimestamp(columnIndex);
+        }
+    };
+
+    /**JDBC 4.2直接传递java.time类型,读取时通过Timestamp直接转换,不经过时区换算*/
+    private static final TypeCodec<LocalDate> LOCAL_DATE_CODEC = new TypeCodec<LocalDate>() {
+        @Override
+        public void bind(PreparedStatement ps, int parameterIndex, LocalDate value) throws SQLException {
+            ps.setObject(parameterIndex, value);
+        }
+
+        @Override
+        public LocalDate read(ResultSet resultSet, int columnIndex) throws SQLException {
+            Timestamp timestamp = resultSet.getTimestamp(columnIndex);
+            return null==timestamp?null:timestamp.toLocalDateTime().toLocalDate();
+        }
+    };
+
+    private static final TypeCodec<LocalDateTime> LOCAL_DATE_TIME_CODEC = new TypeCodec<LocalDateTime>() {
+        @Override
+        public void bind(PreparedStatement ps, int parameterIndex, LocalDateTime value) throws SQLException {
+            ps.setObject(parameterIndex, value);
+        }
+
+        @Override
+        public LocalDateTime read(ResultSet resultSet, int columnIndex) throws SQLException {
+            Timestamp timestamp = resultSet.getTimestamp(columnIndex);
+            return null==timestamp?null:timestamp.toLocalDateTime();
+        }
+    };
+
+    private static final TypeCodec<BigDecimal> BIG_DECIMAL_CODEC = new TypeCodec<BigDecimal>() {
+        @Override
+        public void bind(PreparedStatement ps, int parameterIndex, BigDecimal value) throws SQLException {
+            ps.setBigDecimal(parameterIndex, value);
+        }
+
+        @Override
+        public BigDecimal read(ResultSet resultSet, int columnIndex) throws SQLException {
+            return resultSet.getBigDecimal(columnIndex);
+        }
+    };
+
+    private static final TypeCodec<UUID> UUID_CODEC = new TypeCodec<UUID>() {
+        @Override
+        public void bind(PreparedStatement ps, int parameterIndex, UUID value) throws SQLException {
+            ps.setString(parameterIndex, null==value?null:value.toString());
+        }
+
+        @Override
+        public UUID read(ResultSet resultSet, int columnIndex) throws SQLException {
+            String value = resultSet.getString(columnIndex);
+            return null==value?null:UUID.fromString(value);
+        }
+
+        @Override
+        public String getFieldMappingName() {
+            return "uuid";
+        }
+    };
+
+    private static final TypeCodec<byte[]> BYTES_CODEC = new TypeCodec<byte[]>() {
+        @Override
+        public void bind(PreparedStatement ps, int parameterIndex, byte[] value) throws SQLException {
+            ps.setBytes(parameterIndex, value);
+        }
+
+        @Override
+        public byte[] read(ResultSet resultSet, int columnIndex) throws SQLException {
+            return resultSet.getBytes(columnIndex);
+        }
+
+        @Override
+        public String getFieldMappingName() {
+            return "bytes";
+        }
+    };
+
+    /**类型与转换器的映射*/
+    private final Map<Class,TypeCodec> typeCodecMap = new ConcurrentHashMap<>();
+
+    public TypeCodecRegistry() {
+        register(int.class, INT_CODEC);
+        register(Integer.class, INT_CODEC);
+        register(long.class, LONG_CODEC);
+        register(Long.class, LONG_CODEC);
+        register(float.class, FLOAT_CODEC);
+        register(Float.class, FLOAT_CODEC);
+        register(double.class, DOUBLE_CODEC);
+        register(Double.class, DOUBLE_CODEC);
+        register(boolean.class, BOOLEAN_CODEC);
+        register(Boolean.class, BOOLEAN_CODEC);
+        register(String.class, STRING_CODEC);
+        register(java.util.Date.class, DATE_CODEC);
+        register(Date.class, SQL_DATE_CODEC);
+        register(Timestamp.class, TIMESTAMP_CODEC);
+        register(LocalDate.class, LOCAL_DATE_CODEC);
+        register(LocalDateTime.class, LOCAL_DATE_TIME_CODEC);
+        register(BigDecimal.class, BIG_DECIMAL_CODEC);
+        register(UUID.class, UUID_CODEC);
+        register(byte[].class, BYTES_CODEC);
+    }
+
+    /**
+     * 注册类型转换器,相同类型的转换器会被覆盖
+     * @param type 类型
+     * @param typeCodec 类型转换器
+     */
+    public <T> void register(Class<T> type, TypeCodec<T> typeCodec) {
+        typeCodecMap.put(type, typeCodec);
+    }
+
+    /**
+     * 获取类型转换器
+     * @param type 类型
+     * @return 类型转换器,不存在时返回null
+     */
+    public TypeCodec getTypeCodec(Class type) {
+        TypeCodec typeCodec = typeCodecMap.get(type);
+        if(null!=typeCodec){
+            return typeCodec;
+        }
+        //带有方法体的枚举常量为枚举类的匿名子类
+        if(Enum.class.isAssignableFrom(type)&&!type.isEnum()){
+            type = type.getSuperclass();
+            typeCodec = typeCodecMap.get(type);
+        }
+        if(null==typeCodec&&type.isEnum()){
+            typeCodec = new EnumCodec(type);
+            typeCodecMap.put(type, typeCodec);
+        }
+        return typeCodec;
+    }
+
+    /**枚举类型转换器,以枚举名称存储*/
+    private static class EnumCodec<E extends Enum<E>> implements TypeCodec<E> {
+        private Class<E> type;
+
+        EnumCodec(Class<E> type) {
+            this.type = type;
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int parameterIndex, E value) throws SQLException {
+            ps.setString(parameterIndex, null==value?null:value.name());
+        }
+
+        @Override
+        public E read(ResultSet resultSet, int columnIndex) throws SQLException {
+            String value = resultSet.getString(columnIndex);
+            return null==value?null:Enum.valueOf(type, value);
+        }
+
+        @Override
+        public String getFieldMappingName() {
+            return "enum";
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package cn.schoolwow.quickdao.domain.generator;
+
+import cn.schoolwow.quickdao.annotation.Comment;
+import cn.schoolwow.quickdao.annotation.Id;
+import cn.schoolwow.quickdao.annotation.IdStrategy;
+import cn.schoolwow.quickdao.annotation.TableName;
+
+/**号段分配表,由{@link SegmentIdGenerator}使用*/
+@TableName("quickdao_id_segment")
+@Comment("号段分配表")
+public class IdSegment {
+    @Id(strategy = IdStrategy.None)
+    @Comment("号段名称")
+    private String name;
+
+    @Comment("已分配的最大id")
+    private long maxId;
+
+    @Comment("号段长度")
+    private int step;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    public void setMaxId(long maxId) {
+        this.maxId = maxId;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public void setStep(int step) {
+        this.step = step;
+    }
+}
@@ -0,0 +1,218 @@
+package cn.schoolwow.quickdao.domain.generator;
+
+import cn.schoolwow.quickdao.builder.ddl.AbstractDDLBuilder;
+import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.exception.SQLRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 号段ID生成器
+ * <p>每次通过一条update语句从号段分配表中预留step个id,之后在内存中依次分配.多个进程共用同一号段名称时分配的号段互不重叠</p>
+ * <p>当前号段使用超过prefetchRatio后在后台线程中预取下一号段,号段用完时直接切换,插入时无需等待数据库</p>
+ * <p>进程重启时未分配完的id会被跳过</p>
+ */
+public class SegmentIdGenerator implements IDGenerator {
+    private Logger logger = LoggerFactory.getLogger(SegmentIdGenerator.class);
+    /**号段名称*/
+    private final String name;
+    /**号段长度*/
+    private final int step;
+    /**当前号段使用比例超过该值时预取下一号段*/
+    private final double prefetchRatio;
+    /**数据库配置对象*/
+    private volatile QuickDAOConfig quickDAOConfig;
+    /**当前号段*/
+    private volatile Segment current;
+    /**正在预取或者已预取的下一号段*/
+    private final AtomicReference<Future<Segment>> next = new AtomicReference<>();
+
+    public SegmentIdGenerator() {
+        this("default", 1000);
+    }
+
+    /**
+     * @param name 号段名称
+     * @param step 号段长度
+     */
+    public SegmentIdGenerator(String name, int step) {
+        this(name, step, 0.1);
+    }
+
+    /**
+     * @param name 号段名称
+     * @param step 号段长度
+     * @param prefetchRatio 当前号段使用比例超过该值时预取下一号段,取值范围0-1
+     */
+    public SegmentIdGenerator(String name, int step, double prefetchRatio) {
+        if(null==name||name.isEmpty()){
+            throw new IllegalArgumentException("号段名称不能为空!");
+        }
+        if(step<=0){
+            throw new IllegalArgumentException("号段长度必须大于0!");
+        }
+        if(prefetchRatio<0||prefetchRatio>1){
+            throw new IllegalArgumentException("预取比例必须在0到1之间!");
+        }
+        this.name = name;
+        this.step = step;
+        this.prefetchRatio = prefetchRatio;
+    }
+
+    /**
+     * 绑定数据库配置,由QuickDAO在build时调用
+     * <p>关闭自动建表时,号段分配表不存在则创建</p>
+     * @param quickDAOConfig 数据库配置对象
+     */
+    public void init(QuickDAOConfig quickDAOConfig) {
+        this.quickDAOConfig = quickDAOConfig;
+        if(quickDAOConfig.autoCreateTable){
+            return;
+        }
+        Entity entity = quickDAOConfig.getEntityByClassName(IdSegment.class.getName());
+        try (Connection connection = quickDAOConfig.dataSource.getConnection()){
+            AbstractDDLBuilder ddlBuilder = quickDAOConfig.database.getDDLBuilderInstance(quickDAOConfig);
+            ddlBuilder.connection = connection;
+            if(!ddlBuilder.hasTableExists(entity)){
+                ddlBuilder.createTable(entity);
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    @Override
+    public long getNextId() {
+        while (true) {
+            Segment segment = current;
+            if(null!=segment){
+                long id = segment.value.getAndIncrement();
+                if(id<=segment.max){
+                    if(id-segment.min>=(long) (step*prefetchRatio)&&null==next.get()){
+                        prefetch();
+                    }
+                    return id;
+                }
+            }
+            nextSegment(segment);
+        }
+    }
+
+    /**后台预取下一号段*/
+    private void prefetch() {
+        FutureTask<Segment> task = new FutureTask<>(this::allocate);
+        if(next.compareAndSet(null, task)){
+            quickDAOConfig.getExecutorService().execute(task);
+        }
+    }
+
+    /**
+     * 切换到下一号段,预取未完成时等待,未预取时同步分配
+     * @param segment 已用完的号段
+     */
+    private synchronized void nextSegment(Segment segment) {
+        if(current!=segment){
+            return;
+        }
+        Future<Segment> future = next.getAndSet(null);
+        if(null!=future){
+            try {
+                current = future.get();
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLRuntimeException(e);
+            } catch (ExecutionException e) {
+                logger.warn("[预取号段失败]号段名称:{}", name, e.getCause());
+            }
+        }
+        current = allocate();
+    }
+
+    /**
+     * 从号段分配表中预留一个号段
+     * <p>update语句持有行锁直到事务提交,因此事务内查询到的最大id即为本次预留号段的结束值</p>
+     */
+    private Segment allocate() {
+        if(null==quickDAOConfig){
+            throw new IllegalStateException("号段ID生成器未初始化!请通过QuickDAO.idGenerator方法配置");
+        }
+        Entity entity = quickDAOConfig.getEntityByClassName(IdSegment.class.getName());
+        String nameColumn = quickDAOConfig.database.escape(entity.getColumnNameByFieldName("name"));
+        String maxIdColumn = quickDAOConfig.database.escape(entity.getColumnNameByFieldName("maxId"));
+        String stepColumn = quickDAOConfig.database.escape(entity.getColumnNameByFieldName("step"));
+        try (Connection connection = quickDAOConfig.dataSource.getConnection()){
+            connection.setAutoCommit(false);
+            try {
+                long maxId;
+                for(int retry=0;;retry++){
+                    int effect;
+                    try (PreparedStatement ps = connection.prepareStatement("update " + entity.escapeTableName + " set " + maxIdColumn + " = " + maxIdColumn + " + ?, " + stepColumn + " = ? where " + nameColumn + " = ?")){
+                        ps.setLong(1, step);
+                        ps.setInt(2, step);
+                        ps.setString(3, name);
+                        effect = ps.executeUpdate();
+                    }
+                    if(effect>0){
+                        try (PreparedStatement ps = connection.prepareStatement("select " + maxIdColumn + " from " + entity.escapeTableName + " where " + nameColumn + " = ?")){
+                            ps.setString(1, name);
+                            try (ResultSet resultSet = ps.executeQuery()){
+                                resultSet.next();
+                                maxId = resultSet.getLong(1);
+                            }
+                        }
+                        break;
+                    }
+                    //首次分配时插入记录,其他进程同时插入时主键冲突,重新执行update语句
+                    try (PreparedStatement ps = connection.prepareStatement("insert into " + entity.escapeTableName + "(" + nameColumn + "," + maxIdColumn + "," + stepColumn + ") values(?,?,?)")){
+                        ps.setString(1, name);
+                        ps.setLong(2, step);
+                        ps.setInt(3, step);
+                        ps.executeUpdate();
+                        maxId = step;
+                        break;
+                    } catch (SQLException e) {
+                        if(retry>0){
+                            throw e;
+                        }
+                        connection.rollback();
+                        logger.debug("[号段记录已被其他进程插入]号段名称:{}", name);
+                    }
+                }
+                connection.commit();
+                logger.debug("[分配号段]号段名称:{},号段范围:[{},{}]", name, maxId-step+1, maxId);
+                return new Segment(maxId-step+1, maxId);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    /**号段,范围为[min,max]*/
+    private static class Segment {
+        private final long min;
+        private final long max;
+        /**下一个待分配的id*/
+        private final AtomicLong value;
+
+        Segment(long min, long max) {
+            this.min = min;
+            this.max = max;
+            this.value = new AtomicLong(min);
+        }
+    }
+}
@@ -1,52 +1,97 @@
 package cn.schoolwow.quickdao.domain.generator;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * 雪花算法ID生成器
- * 本生成器无数据中心和机器id识别,毫秒内最大生成id数2^22 = 4194304
+ * <p>ID由高到低依次为时间戳,数据中心id,机器id和毫秒内序列号.默认无数据中心和机器id位,生成的id不超过53位(js最大支持53位整型)</p>
+ * <p>多个进程同时生成id时请为每个进程指定不同的数据中心id和机器id</p>
+ * <p>时间戳和序列号打包保存在一个AtomicLong中,通过CAS更新,生成id时无需加锁</p>
  */
 public class SnowflakeIdGenerator implements IDGenerator {
     //时间起始标记点 (2020-01-01)
     private final static long twepoch = 1577808000000l;
-    //毫秒内自增位(js最大支持53位整型)
+    //毫秒内自增位
     private final static long sequenceBits = 12L;
-    //时间毫秒数需要左移22位
-    private final static long timestampLeftShift = sequenceBits;
-    //序列号掩码 2^22 = 4194304
+    //序列号掩码 2^12 = 4096
     private final static long sequenceMask = -1L ^ (-1L << sequenceBits);
-    //上次生产id的时间戳
-    private static long lastTimestamp = -1L;
-    //毫秒内序列号
-    private long sequence = 0L;
+    //数据中心id位与机器id位之和的最大值,保证时间戳至少有41位
+    private final static long maxNodeBits = 10L;
+    //默认允许的时钟回拨毫秒数
+    private final static long defaultMaxBackwardMillis = 10L;
+    //时间戳左移位数
+    private final long timestampLeftShift;
+    //数据中心id与机器id移位后的值
+    private final long nodeId;
+    //允许的时钟回拨毫秒数,回拨时间在此范围内时继续使用上次的时间戳生成id
+    private final long maxBackwardMillis;
+    //上次生成id的相对时间戳与毫秒内序列号,时间戳占高位
+    private final AtomicLong state = new AtomicLong(-1L << sequenceBits);
 
-    @Override
-    public synchronized long getNextId() {
-        long timestamp = timeGen();
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException("时钟回拨!当前时间戳:" + timestamp + ",上次id时间戳:" + lastTimestamp);
+    public SnowflakeIdGenerator() {
+        this(0, 0, 0, 0, defaultMaxBackwardMillis);
+    }
+
+    /**
+     * 指定机器id和数据中心id,机器id和数据中心id各占5位
+     * @param workerId 机器id,取值范围0-31
+     * @param datacenterId 数据中心id,取值范围0-31
+     */
+    public SnowflakeIdGenerator(long workerId, long datacenterId) {
+        this(5, workerId, 5, datacenterId, defaultMaxBackwardMillis);
+    }
+
+    /**
+     * @param workerIdBits 机器id位数
+     * @param workerId 机器id
+     * @param datacenterIdBits 数据中心id位数
+     * @param datacenterId 数据中心id
+     * @param maxBackwardMillis 允许的时钟回拨毫秒数
+     */
+    public SnowflakeIdGenerator(int workerIdBits, long workerId, int datacenterIdBits, long datacenterId, long maxBackwardMillis) {
+        if(workerIdBits<0||datacenterIdBits<0||workerIdBits+datacenterIdBits>maxNodeBits){
+            throw new IllegalArgumentException("机器id位数与数据中心id位数之和必须在0到"+maxNodeBits+"之间!");
         }
-        if (lastTimestamp == timestamp) {
-            //同一毫秒内
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
-                //当前毫秒内计数满了,则等待下一毫秒
-                timestamp = tilNextMillis(lastTimestamp);
-            }
-        } else {
-            //重置毫秒内序列号
-            sequence = 0L;
+        if(workerId<0||workerId>=(1L<<workerIdBits)){
+            throw new IllegalArgumentException("机器id超出范围!机器id:"+workerId+",位数:"+workerIdBits);
+        }
+        if(datacenterId<0||datacenterId>=(1L<<datacenterIdBits)){
+            throw new IllegalArgumentException("数据中心id超出范围!数据中心id:"+datacenterId+",位数:"+datacenterIdBits);
+        }
+        if(maxBackwardMillis<0){
+            throw new IllegalArgumentException("允许的时钟回拨毫秒数不能小于0!");
         }
-        lastTimestamp = timestamp;
-        // ID偏移组合生成最终的ID
-        long nextId = ((timestamp - twepoch) << timestampLeftShift) | sequence;
-        return nextId;
+        this.timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
+        this.nodeId = (datacenterId << (sequenceBits + workerIdBits)) | (workerId << sequenceBits);
+        this.maxBackwardMillis = maxBackwardMillis;
     }
 
-    private long tilNextMillis(final long lastTimestamp) {
-        long timestamp = this.timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = this.timeGen();
+    @Override
+    public long getNextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >> sequenceBits;
+            long timestamp = timeGen() - twepoch;
+            long next;
+            if (timestamp > lastTimestamp) {
+                //进入新的毫秒,重置毫秒内序列号
+                next = timestamp << sequenceBits;
+            } else {
+                if (lastTimestamp - timestamp > maxBackwardMillis) {
+                    throw new IllegalStateException("时钟回拨!当前时间戳:" + (timestamp + twepoch) + ",上次id时间戳:" + (lastTimestamp + twepoch));
+                }
+                if ((current & sequenceMask) == sequenceMask) {
+                    //当前毫秒内计数满了,则等待下一毫秒
+                    continue;
+                }
+                //同一毫秒内或者时钟回拨在允许范围内,沿用上次的时间戳
+                next = current + 1;
+            }
+            if (state.compareAndSet(current, next)) {
+                // ID偏移组合生成最终的ID
+                return ((next >> sequenceBits) << timestampLeftShift) | nodeId | (next & sequenceMask);
+            }
         }
-        return timestamp;
     }
 
     private long timeGen() {
@@ -98,6 +98,7 @@ public class DefaultEntityHandler implements EntityHandler{
                 }
                 property.name = field.getName();
                 property.simpleTypeName = field.getType().getSimpleName().toLowerCase();
+                property.typeCodec = quickDAOConfig.typeCodecRegistry.getTypeCodec(field.getType());
                 property.className = field.getType().getName();
                 Constraint constraint = field.getDeclaredAnnotation(Constraint.class);
                 if(null!=constraint){
@@ -382,6 +383,14 @@ public class DefaultEntityHandler implements EntityHandler{
                     logger.debug("[跳过实体属性]{},该属性被Ignore注解修饰!", field.getName());
                     continue;
                 }
+                //存在类型转换器的类型(枚举,byte[]等)只根据用户配置过滤,不跳过
+                if(null!=quickDAOConfig.typeCodecRegistry.getTypeCodec(field.getType())){
+                    if(!isUserIgnoredClass(field.getType())){
+                        field.setAccessible(true);
+                        fieldList.add(field);
+                    }
+                    continue;
+                }
                 //跳过List类型和数组类型
                 if(field.getType().isArray()||(!field.getType().isPrimitive()&&isCollection(field.getType()))){
                     continue;
@@ -448,6 +457,14 @@ public class DefaultEntityHandler implements EntityHandler{
         if(clazz.isEnum()){
             return true;
         }
+        return isUserIgnoredClass(clazz);
+    }
+
+    /**
+     * 是否被用户配置忽略(Ignore注解,忽略类列表,忽略包名和过滤函数)
+     * @param clazz 类
+     * */
+    private boolean isUserIgnoredClass(Class clazz){
         if (clazz.getAnnotation(Ignore.class) != null) {
             return true;
         }
@@ -0,0 +1,171 @@
+package cn.schoolwow.quickdao.mapper;
+
+import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.Query;
+import cn.schoolwow.quickdao.domain.SubQuery;
+import cn.schoolwow.quickdao.util.QuickDAOUtil;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 关联对象组装器
+ * <p>按照{@link ResultPlan}中预先计算的父子关系组装关联对象.</p>
+ * <p>存在一对多关联(关联对象对应的成员变量为集合类型)时,主表记录和关联表记录按id合并,
+ * 关联表记录添加到父对象的集合中,同一父对象只返回一次</p>
+ * <p>合并时要求结果集按主表id分组(例如按主表id排序),只保留当前主表对象及其关联对象,主表id变化时清空</p>
+ */
+public class CompositAssembler {
+    /**非集合类型关联对象的键*/
+    private static final Object SINGLE_KEY = new Object();
+
+    /**查询对象*/
+    private Query query;
+    /**结果集读取计划*/
+    private ResultPlan resultPlan;
+    /**是否组装为JSONObject*/
+    private boolean json;
+    /**当前主表对象的id*/
+    private Object rootId;
+    /**当前主表对象*/
+    private Object root;
+    /**当前主表对象下各关联表已读取的对象,与query.subQueryList一一对应,键为父对象*/
+    private IdentityHashMap<Object,Map<Object,Object>>[] childMaps;
+
+    /**
+     * @param query 查询对象
+     * @param resultPlan 结果集读取计划
+     * @param json 是否组装为JSONObject
+     */
+    public CompositAssembler(Query query, ResultPlan resultPlan, boolean json) {
+        this.query = query;
+        this.resultPlan = resultPlan;
+        this.json = json;
+        if(resultPlan.oneToMany){
+            childMaps = new IdentityHashMap[query.subQueryList.size()];
+            for(int i=0;i<childMaps.length;i++){
+                childMaps[i] = new IdentityHashMap<>();
+            }
+        }
+    }
+
+    /**
+     * 组装结果集当前行
+     * @param resultSet 结果集
+     * @return 主表对象,当前行合并到已返回的主表对象时返回null
+     */
+    public Object assemble(ResultSet resultSet) throws SQLException {
+        Object root = null;
+        boolean newRoot = true;
+        if(resultPlan.oneToMany&&resultPlan.idColumnIndex>0){
+            Object id = resultSet.getObject(resultPlan.idColumnIndex);
+            if(null!=this.root&&null!=id&&id.equals(rootId)){
+                root = this.root;
+                newRoot = false;
+            }else{
+                root = create(resultSet, query.entity, resultPlan.columnIndexes);
+                rootId = id;
+                this.root = root;
+                for(IdentityHashMap<Object,Map<Object,Object>> childMap:childMaps){
+                    childMap.clear();
+                }
+            }
+        }else{
+            root = create(resultSet, query.entity, resultPlan.columnIndexes);
+        }
+        List<SubQuery> subQueryList = query.subQueryList;
+        Object[] subObjects = new Object[subQueryList.size()];
+        for (int i = 0; i < subObjects.length; i++) {
+            SubQuery subQuery = subQueryList.get(i);
+            if(null==subQuery.compositField||subQuery.compositField.isEmpty()) {
+                continue;
+            }
+            int parentIndex = resultPlan.parentIndexes[i];
+            Object parent = parentIndex<0?root:subObjects[parentIndex];
+            if(null==parent){
+                continue;
+            }
+            Entity parentEntity = parentIndex<0?query.entity:subQueryList.get(parentIndex).entity;
+            if(!resultPlan.oneToMany){
+                subObjects[i] = create(resultSet, subQuery.entity, resultPlan.subQueryColumnIndexes[i]);
+                link(parentEntity, parent, subQuery.compositField, subObjects[i], false);
+                continue;
+            }
+            boolean collection = resultPlan.collectionFields[i];
+            Object key = SINGLE_KEY;
+            if(collection){
+                if(resultPlan.subQueryIdColumnIndexes[i]>0){
+                    key = resultSet.getObject(resultPlan.subQueryIdColumnIndexes[i]);
+                    //左连接无关联记录
+                    if(null==key){
+                        continue;
+                    }
+                }else{
+                    key = new Object();
+                }
+            }
+            Map<Object,Object> children = childMaps[i].get(parent);
+            if(null==children){
+                children = new HashMap<>();
+                childMaps[i].put(parent, children);
+            }
+            Object child = children.get(key);
+            if(null==child){
+                child = create(resultSet, subQuery.entity, resultPlan.subQueryColumnIndexes[i]);
+                children.put(key, child);
+                link(parentEntity, parent, subQuery.compositField, child, collection);
+            }
+            subObjects[i] = child;
+        }
+        return newRoot?root:null;
+    }
+
+    /**
+     * 读取对象
+     * @param resultSet 结果集
+     * @param entity 实体类信息
+     * @param columnIndexes 各属性对应的列下标
+     */
+    private Object create(ResultSet resultSet, Entity entity, int[] columnIndexes) throws SQLException {
+        if(json){
+            return QuickDAOUtil.getObject(entity, columnIndexes, resultSet);
+        }
+        return EntityRowMapper.getInstance(entity).mapRow(resultSet, columnIndexes);
+    }
+
+    /**
+     * 关联父子对象
+     * @param parentEntity 父对象实体类信息
+     * @param parent 父对象
+     * @param compositField 父对象成员变量名
+     * @param child 子对象
+     * @param collection 成员变量是否为集合类型
+     */
+    private void link(Entity parentEntity, Object parent, String compositField, Object child, boolean collection) {
+        if(json){
+            JSONObject o = (JSONObject) parent;
+            if(collection){
+                JSONArray array = o.getJSONArray(compositField);
+                if(null==array){
+                    array = new JSONArray();
+                    o.put(compositField, array);
+                }
+                array.add(child);
+            }else{
+                o.put(compositField, child);
+            }
+            return;
+        }
+        if(collection){
+            EntityRowMapper.getInstance(parentEntity).addCompositField(parent, compositField, child);
+        }else{
+            EntityRowMapper.getInstance(parentEntity).setCompositField(parent, compositField, child);
+        }
+    }
+}
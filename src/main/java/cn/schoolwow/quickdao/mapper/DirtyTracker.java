@@ -0,0 +1,135 @@
+package cn.schoolwow.quickdao.mapper;
+
+import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.Property;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实体类变更跟踪器
+ * <p>查询映射实体类实例时保存各属性值快照,更新时只更新与快照不一致的属性</p>
+ * <p>快照以实例引用为键弱引用保存,实例被回收后快照随之清除</p>
+ */
+public class DirtyTracker {
+    /**实体类信息*/
+    private Entity entity;
+    /**已回收实例引用队列*/
+    private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<>();
+    /**实例与属性值快照的映射,快照与entity.properties一一对应*/
+    private final ConcurrentHashMap<InstanceReference,Object[]> snapshotMap = new ConcurrentHashMap<>();
+
+    public DirtyTracker(Entity entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * 保存实例属性值快照
+     * @param instance 实例
+     */
+    public void snapshot(Object instance) {
+        expunge();
+        PropertyAccessor propertyAccessor = PropertyAccessor.getInstance(entity);
+        List<Property> properties = entity.properties;
+        Object[] snapshot = new Object[properties.size()];
+        for(int i=0;i<snapshot.length;i++){
+            snapshot[i] = copy(propertyAccessor.getValue(instance, properties.get(i)));
+        }
+        snapshotMap.put(new InstanceReference(instance, referenceQueue), snapshot);
+    }
+
+    /**
+     * 获取实例已变更的属性
+     * @param instance 实例
+     * @return 已变更属性在entity.properties中的下标集合,实例没有快照时返回null
+     */
+    public BitSet getDirtyMask(Object instance) {
+        Object[] snapshot = snapshotMap.get(new InstanceReference(instance, null));
+        if(null==snapshot){
+            return null;
+        }
+        PropertyAccessor propertyAccessor = PropertyAccessor.getInstance(entity);
+        List<Property> properties = entity.properties;
+        BitSet dirtyMask = new BitSet(snapshot.length);
+        for(int i=0;i<snapshot.length;i++){
+            if(!Objects.deepEquals(snapshot[i], propertyAccessor.getValue(instance, properties.get(i)))){
+                dirtyMask.set(i);
+            }
+        }
+        return dirtyMask;
+    }
+
+    /**
+     * 清除实例快照
+     * @param instance 实例
+     */
+    public void remove(Object instance) {
+        snapshotMap.remove(new InstanceReference(instance, null));
+    }
+
+    /**
+     * 获取变更属性集合在SQL缓存键中的表示
+     * @param dirtyMask 变更属性集合
+     */
+    public static String getMaskKey(BitSet dirtyMask) {
+        StringBuilder builder = new StringBuilder();
+        for(long word:dirtyMask.toLongArray()){
+            builder.append(Long.toHexString(word)+".");
+        }
+        return builder.toString();
+    }
+
+    /**清除已回收实例的快照*/
+    private void expunge() {
+        Reference<?> reference;
+        while(null!=(reference=referenceQueue.poll())){
+            snapshotMap.remove(reference);
+        }
+    }
+
+    /**
+     * 复制可变属性值
+     * @param value 属性值
+     */
+    private static Object copy(Object value) {
+        if(value instanceof byte[]){
+            return ((byte[]) value).clone();
+        }
+        if(value instanceof java.util.Date){
+            return ((java.util.Date) value).clone();
+        }
+        if(value instanceof Calendar){
+            return ((Calendar) value).clone();
+        }
+        return value;
+    }
+
+    /**以对象地址比较的实例弱引用*/
+    private static class InstanceReference extends WeakReference<Object> {
+        private final int hashCode;
+
+        InstanceReference(Object instance, ReferenceQueue<Object> referenceQueue) {
+            super(instance, referenceQueue);
+            this.hashCode = System.identityHashCode(instance);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof InstanceReference)) return false;
+            Object instance = get();
+            return null!=instance&&instance==((InstanceReference) o).get();
+        }
+    }
+}
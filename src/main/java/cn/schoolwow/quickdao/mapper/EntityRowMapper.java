@@ -0,0 +1,369 @@
+package cn.schoolwow.quickdao.mapper;
+
+import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.Property;
+import cn.schoolwow.quickdao.domain.codec.TypeCodec;
+import cn.schoolwow.quickdao.exception.SQLRuntimeException;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.util.TypeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实体类结果集映射器
+ * <p>根据实体类属性信息一次性生成各字段的读取和赋值逻辑,直接将结果集写入实体类实例,无需经过JSONObject中转</p>
+ */
+public class EntityRowMapper {
+    private static Logger logger = LoggerFactory.getLogger(EntityRowMapper.class);
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    /**Object类型赋值方法签名*/
+    private static final MethodType objectSetterType = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**实体类信息*/
+    private Entity entity;
+    /**无参构造方法,为null时表示该实体类无法直接映射*/
+    private MethodHandle constructor;
+    /**字段映射器,与entity.properties一一对应*/
+    private ColumnMapper[] columnMappers;
+    /**字段读取器,与entity.properties一一对应,用于转换为JSONObject*/
+    private ColumnReader[] columnReaders;
+    /**复杂属性访问方法*/
+    private final ConcurrentHashMap<String,CompositFieldAccessor> compositFieldAccessorMap = new ConcurrentHashMap<>();
+
+    private EntityRowMapper(Entity entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * 获取实体类映射器
+     * @param entity 实体类信息
+     */
+    public static EntityRowMapper getInstance(Entity entity) {
+        if(null==entity.rowMapper){
+            synchronized (entity){
+                if(null==entity.rowMapper){
+                    EntityRowMapper rowMapper = new EntityRowMapper(entity);
+                    rowMapper.compile();
+                    entity.rowMapper = rowMapper;
+                }
+            }
+        }
+        return entity.rowMapper;
+    }
+
+    /**该实体类是否支持直接映射为实体类实例*/
+    public boolean isSupported() {
+        return null!=constructor;
+    }
+
+    /**
+     * 将结果集当前行映射为实体类实例
+     * @param resultSet 结果集
+     * @param columnIndexes 各属性对应的列下标,为0时跳过该属性
+     * @see ResultPlan
+     */
+    public Object mapRow(ResultSet resultSet, int[] columnIndexes) throws SQLException {
+        try {
+            Object instance = constructor.invoke();
+            for(int i=0;i<columnMappers.length;i++){
+                if(columnIndexes[i]>0){
+                    columnMappers[i].map(resultSet,columnIndexes[i],instance);
+                }
+            }
+            if(null!=entity.dirtyTracker){
+                entity.dirtyTracker.snapshot(instance);
+            }
+            return instance;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * 将结果集当前行转换为JSONObject对象
+     * @param resultSet 结果集
+     * @param columnIndexes 各属性对应的列下标,为0时跳过该属性
+     * @see ResultPlan
+     */
+    public JSONObject mapObject(ResultSet resultSet, int[] columnIndexes) throws SQLException {
+        JSONObject subObject = new JSONObject(true);
+        List<Property> properties = entity.properties;
+        for(int i=0;i<columnReaders.length;i++){
+            if(columnIndexes[i]>0){
+                Property property = properties.get(i);
+                subObject.put(null==property.name?property.column:property.name, columnReaders[i].read(resultSet,columnIndexes[i]));
+            }
+        }
+        return subObject;
+    }
+
+    /**
+     * 设置复杂属性值
+     * @param instance 实例
+     * @param compositField 复杂属性名
+     * @param value 复杂属性值
+     */
+    public void setCompositField(Object instance, String compositField, Object value) {
+        CompositFieldAccessor accessor = getCompositFieldAccessor(compositField);
+        try {
+            accessor.setter.invokeExact(instance, value);
+        } catch (Throwable e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    /**
+     * 添加元素到集合类型的复杂属性中,复杂属性值为null时自动创建集合
+     * @param instance 实例
+     * @param compositField 复杂属性名
+     * @param value 元素
+     */
+    public void addCompositField(Object instance, String compositField, Object value) {
+        CompositFieldAccessor accessor = getCompositFieldAccessor(compositField);
+        try {
+            Collection collection = (Collection) (Object) accessor.getter.invokeExact(instance);
+            if(null==collection){
+                collection = Set.class.isAssignableFrom(accessor.type)?new LinkedHashSet():new ArrayList();
+                accessor.setter.invokeExact(instance, (Object) collection);
+            }
+            collection.add(value);
+        } catch (Throwable e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    /**
+     * 判断类的成员变量是否为集合类型
+     * @param clazz 类
+     * @param fieldName 成员变量名
+     */
+    public static boolean isCollectionField(Class clazz, String fieldName) {
+        if(null==clazz||JSONObject.class.equals(clazz)){
+            return false;
+        }
+        Field field = getField(clazz, fieldName);
+        return null!=field&&Collection.class.isAssignableFrom(field.getType());
+    }
+
+    /**
+     * 获取复杂属性访问方法
+     * @param compositField 复杂属性名
+     */
+    private CompositFieldAccessor getCompositFieldAccessor(String compositField) {
+        CompositFieldAccessor accessor = compositFieldAccessorMap.get(compositField);
+        if(null==accessor){
+            Field field = getField(entity.clazz, compositField);
+            if(null==field){
+                throw new IllegalArgumentException("复杂属性不存在!属性名:"+compositField+",类名:"+entity.clazz.getName());
+            }
+            accessor = new CompositFieldAccessor();
+            try {
+                accessor.getter = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+                accessor.setter = lookup.unreflectSetter(field).asType(objectSetterType);
+            } catch (IllegalAccessException e) {
+                throw new SQLRuntimeException(e);
+            }
+            accessor.type = field.getType();
+            compositFieldAccessorMap.put(compositField,accessor);
+        }
+        return accessor;
+    }
+
+    /**生成构造方法和各字段映射器*/
+    private void compile() {
+        List<Property> properties = entity.properties;
+        columnReaders = new ColumnReader[properties.size()];
+        for(int i=0;i<columnReaders.length;i++){
+            columnReaders[i] = getColumnReader(properties.get(i));
+        }
+        Class clazz = entity.clazz;
+        if(null==clazz||JSONObject.class.equals(clazz)||clazz.isInterface()||Modifier.isAbstract(clazz.getModifiers())){
+            return;
+        }
+        try {
+            Constructor declaredConstructor = clazz.getDeclaredConstructor();
+            declaredConstructor.setAccessible(true);
+            ColumnMapper[] columnMappers = new ColumnMapper[properties.size()];
+            for(int i=0;i<columnMappers.length;i++){
+                Property property = properties.get(i);
+                Field field = getField(clazz, property.name);
+                if(null==field){
+                    logger.debug("[无法直接映射实体类]字段不存在,字段名:{},类名:{}", property.name, clazz.getName());
+                    return;
+                }
+                columnMappers[i] = getColumnMapper(property, field);
+            }
+            this.columnMappers = columnMappers;
+            this.constructor = lookup.unreflectConstructor(declaredConstructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            logger.debug("[无法直接映射实体类]类名:{},原因:{}", clazz.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 获取字段映射器,基本类型字段直接读取基本类型值
+     * @param property 属性信息
+     * @param field 字段
+     */
+    private static ColumnMapper getColumnMapper(Property property, Field field) throws IllegalAccessException {
+        field.setAccessible(true);
+        MethodHandle setter = lookup.unreflectSetter(field);
+        final MethodHandle objectSetter = setter.asType(objectSetterType);
+        final Class type = field.getType();
+        final TypeCodec typeCodec = property.typeCodec;
+        if(null==typeCodec){
+            if(null==property.simpleTypeName){
+                return (resultSet, columnIndex, instance) -> {
+                    objectSetter.invokeExact(instance, (Object) resultSet.getString(columnIndex));
+                };
+            }
+            final Class wrapperType = MethodType.methodType(type).wrap().returnType();
+            return (resultSet, columnIndex, instance) -> {
+                Object value = resultSet.getObject(columnIndex);
+                if(null==value){
+                    return;
+                }
+                if(!wrapperType.isInstance(value)){
+                    value = TypeUtils.castToJavaBean(value, type);
+                }
+                objectSetter.invokeExact(instance, value);
+            };
+        }
+        if(type.isPrimitive()){
+            if(typeCodec instanceof TypeCodec.IntCodec){
+                final TypeCodec.IntCodec intCodec = (TypeCodec.IntCodec) typeCodec;
+                final MethodHandle intSetter = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+                return (resultSet, columnIndex, instance) -> {
+                    intSetter.invokeExact(instance, intCodec.readInt(resultSet, columnIndex));
+                };
+            }
+            if(typeCodec instanceof TypeCodec.LongCodec){
+                final TypeCodec.LongCodec longCodec = (TypeCodec.LongCodec) typeCodec;
+                final MethodHandle longSetter = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+                return (resultSet, columnIndex, instance) -> {
+                    longSetter.invokeExact(instance, longCodec.readLong(resultSet, columnIndex));
+                };
+            }
+            if(typeCodec instanceof TypeCodec.FloatCodec){
+                final TypeCodec.FloatCodec floatCodec = (TypeCodec.FloatCodec) typeCodec;
+                final MethodHandle floatSetter = setter.asType(MethodType.methodType(void.class, Object.class, float.class));
+                return (resultSet, columnIndex, instance) -> {
+                    floatSetter.invokeExact(instance, floatCodec.readFloat(resultSet, columnIndex));
+                };
+            }
+            if(typeCodec instanceof TypeCodec.DoubleCodec){
+                final TypeCodec.DoubleCodec doubleCodec = (TypeCodec.DoubleCodec) typeCodec;
+                final MethodHandle doubleSetter = setter.asType(MethodType.methodType(void.class, Object.class, double.class));
+                return (resultSet, columnIndex, instance) -> {
+                    doubleSetter.invokeExact(instance, doubleCodec.readDouble(resultSet, columnIndex));
+                };
+            }
+            if(typeCodec instanceof TypeCodec.BooleanCodec){
+                final TypeCodec.BooleanCodec booleanCodec = (TypeCodec.BooleanCodec) typeCodec;
+                final MethodHandle booleanSetter = setter.asType(MethodType.methodType(void.class, Object.class, boolean.class));
+                return (resultSet, columnIndex, instance) -> {
+                    booleanSetter.invokeExact(instance, booleanCodec.readBoolean(resultSet, columnIndex));
+                };
+            }
+        }
+        return (resultSet, columnIndex, instance) -> {
+            Object value = typeCodec.read(resultSet, columnIndex);
+            if(null!=value||!type.isPrimitive()){
+                objectSetter.invokeExact(instance, value);
+            }
+        };
+    }
+
+    /**
+     * 获取字段读取器
+     * @param property 属性信息
+     */
+    private static ColumnReader getColumnReader(Property property) {
+        if(null!=property.typeCodec){
+            return property.typeCodec::read;
+        }
+        if(null==property.simpleTypeName){
+            return ResultSet::getString;
+        }
+        return ResultSet::getObject;
+    }
+
+    /**
+     * 查找字段(包括父类字段)
+     * @param clazz 类
+     * @param fieldName 字段名
+     */
+    static Field getField(Class clazz, String fieldName) {
+        Class tempClass = clazz;
+        while(null!=tempClass){
+            for(Field field:tempClass.getDeclaredFields()){
+                if(field.getName().equals(fieldName)){
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+            tempClass = tempClass.getSuperclass();
+        }
+        return null;
+    }
+
+    /**包装映射过程中抛出的异常*/
+    private static RuntimeException rethrow(Throwable e) throws SQLException {
+        if(e instanceof SQLException){
+            throw (SQLException) e;
+        }
+        if(e instanceof RuntimeException){
+            return (RuntimeException) e;
+        }
+        if(e instanceof Error){
+            throw (Error) e;
+        }
+        return new SQLRuntimeException(e);
+    }
+
+    /**复杂属性访问方法*/
+    private static class CompositFieldAccessor {
+        /**取值方法*/
+        MethodHandle getter;
+        /**赋值方法*/
+        MethodHandle setter;
+        /**成员变量类型*/
+        Class type;
+    }
+
+    /**单个字段映射器*/
+    private interface ColumnMapper {
+        /**
+         * 读取结果集列值并写入实例字段
+         * @param resultSet 结果集
+         * @param columnIndex 列下标
+         * @param instance 实例
+         */
+        void map(ResultSet resultSet, int columnIndex, Object instance) throws Throwable;
+    }
+
+    /**单个字段读取器*/
+    private interface ColumnReader {
+        /**
+         * 读取结果集列值
+         * @param resultSet 结果集
+         * @param columnIndex 列下标
+         */
+        Object read(ResultSet resultSet, int columnIndex) throws SQLException;
+    }
+}
@@ -0,0 +1,151 @@
+package cn.schoolwow.quickdao.mapper;
+
+import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.Property;
+import cn.schoolwow.quickdao.exception.SQLRuntimeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 实体类属性访问器
+ * <p>为实体类各属性一次性生成取值和赋值方法,绑定参数和回写属性值时无需再遍历类层级查找字段</p>
+ */
+public class PropertyAccessor {
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    /**Object类型取值方法签名*/
+    private static final MethodType objectGetterType = MethodType.methodType(Object.class, Object.class);
+    /**Object类型赋值方法签名*/
+    private static final MethodType objectSetterType = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**实体类信息*/
+    private Entity entity;
+    /**属性名与访问方法的映射*/
+    private Map<String,FieldAccessor> fieldAccessorMap = new HashMap<>();
+
+    private PropertyAccessor(Entity entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * 获取实体类属性访问器
+     * @param entity 实体类信息
+     */
+    public static PropertyAccessor getInstance(Entity entity) {
+        if(null==entity.propertyAccessor){
+            synchronized (entity){
+                if(null==entity.propertyAccessor){
+                    PropertyAccessor propertyAccessor = new PropertyAccessor(entity);
+                    propertyAccessor.compile();
+                    entity.propertyAccessor = propertyAccessor;
+                }
+            }
+        }
+        return entity.propertyAccessor;
+    }
+
+    /**
+     * 获取属性值
+     * @param instance 实例
+     * @param property 属性信息
+     */
+    public Object getValue(Object instance, Property property) {
+        try {
+            return getFieldAccessor(property).getter.invokeExact(instance);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    /**
+     * 设置属性值
+     * @param instance 实例
+     * @param property 属性信息
+     * @param value 属性值,类型须与属性类型一致
+     */
+    public void setValue(Object instance, Property property, Object value) {
+        try {
+            getFieldAccessor(property).setter.invokeExact(instance, value);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    /**
+     * 设置数值类型属性值,根据属性类型转换为int,long或者String
+     * <p>用于回写自增id和生成的id</p>
+     * @param instance 实例
+     * @param property 属性信息
+     * @param value 属性值
+     */
+    public void setNumberValue(Object instance, Property property, Object value) {
+        Class type = getType(property);
+        if(int.class.equals(type)||Integer.class.equals(type)){
+            setValue(instance, property, value instanceof Number?((Number) value).intValue():Integer.parseInt(value.toString()));
+        }else if(long.class.equals(type)||Long.class.equals(type)){
+            setValue(instance, property, value instanceof Number?((Number) value).longValue():Long.parseLong(value.toString()));
+        }else if(String.class.equals(type)){
+            setValue(instance, property, value.toString());
+        }
+    }
+
+    /**
+     * 获取属性类型
+     * @param property 属性信息
+     */
+    public Class getType(Property property) {
+        return getFieldAccessor(property).type;
+    }
+
+    /**
+     * 获取属性访问方法
+     * @param property 属性信息
+     */
+    private FieldAccessor getFieldAccessor(Property property) {
+        FieldAccessor fieldAccessor = fieldAccessorMap.get(property.name);
+        if(null==fieldAccessor){
+            throw new IllegalArgumentException("字段不存在!字段名:"+property.name+",类名:"+entity.clazz.getName());
+        }
+        return fieldAccessor;
+    }
+
+    /**生成各属性访问方法*/
+    private void compile() {
+        if(null==entity.clazz){
+            return;
+        }
+        for(Property property:entity.properties){
+            Field field = EntityRowMapper.getField(entity.clazz, property.name);
+            if(null==field){
+                continue;
+            }
+            FieldAccessor fieldAccessor = new FieldAccessor();
+            try {
+                fieldAccessor.getter = lookup.unreflectGetter(field).asType(objectGetterType);
+                fieldAccessor.setter = lookup.unreflectSetter(field).asType(objectSetterType);
+            } catch (IllegalAccessException e) {
+                throw new SQLRuntimeException(e);
+            }
+            fieldAccessor.type = field.getType();
+            fieldAccessorMap.put(property.name, fieldAccessor);
+        }
+    }
+
+    /**属性访问方法*/
+    private static class FieldAccessor {
+        /**取值方法*/
+        MethodHandle getter;
+        /**赋值方法*/
+        MethodHandle setter;
+        /**属性类型*/
+        Class type;
+    }
+}
@@ -0,0 +1,185 @@
+package cn.schoolwow.quickdao.mapper;
+
+import cn.schoolwow.quickdao.builder.dql.AbstractDQLBuilder;
+import cn.schoolwow.quickdao.domain.Entity;
+import cn.schoolwow.quickdao.domain.Property;
+import cn.schoolwow.quickdao.domain.Query;
+import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.domain.SubQuery;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 结果集读取计划
+ * <p>根据结果集元数据一次性解析各属性对应的列下标,遍历结果集时只按下标读取列值.
+ * 计划按返回列结构缓存在{@link QuickDAOConfig#resultPlanCache}中,相同结构的查询无需再次解析元数据</p>
+ */
+public class ResultPlan {
+    /**结果集列名,下标从0开始*/
+    public String[] columnLabels;
+    /**主表各属性对应的列下标,0表示结果集中不存在该列*/
+    public int[] columnIndexes;
+    /**关联表各属性对应的列下标,与query.subQueryList一一对应,不返回关联对象的关联表为null*/
+    public int[][] subQueryColumnIndexes;
+    /**关联表的父表下标,与query.subQueryList一一对应,-1表示父表为主表*/
+    public int[] parentIndexes;
+    /**关联表在父对象中对应的成员变量是否为集合类型,与query.subQueryList一一对应*/
+    public boolean[] collectionFields;
+    /**是否存在一对多关联*/
+    public boolean oneToMany;
+    /**主表id列下标,0表示结果集中不存在该列*/
+    public int idColumnIndex;
+    /**关联表id列下标,与query.subQueryList一一对应*/
+    public int[] subQueryIdColumnIndexes;
+    /**窗口函数总记录数列下标,0表示结果集中不存在该列*/
+    public int windowCountColumnIndex;
+    /**最近一次查询返回的行数,用于预估结果集容量*/
+    public volatile int sizeHint;
+
+    /**
+     * 获取单表查询的读取计划
+     * @param quickDAOConfig 配置信息
+     * @param entity 实体类信息
+     * @param tableAliasName 表别名
+     * @param resultSet 结果集
+     */
+    public static ResultPlan getInstance(QuickDAOConfig quickDAOConfig, Entity entity, String tableAliasName, ResultSet resultSet) throws SQLException {
+        String key = "resultPlan_" + entity.clazz.getName() + "_" + entity.tableName + "_" + tableAliasName;
+        ResultPlan resultPlan = quickDAOConfig.resultPlanCache.get(key);
+        if(null==resultPlan){
+            resultPlan = new ResultPlan();
+            Map<String,Integer> columnLabelIndexMap = resultPlan.getColumnLabelIndexMap(resultSet);
+            resultPlan.columnIndexes = getColumnIndexes(entity, tableAliasName, columnLabelIndexMap);
+            quickDAOConfig.resultPlanCache.put(key,resultPlan);
+        }
+        return resultPlan;
+    }
+
+    /**
+     * 获取Condition查询的读取计划
+     * @param query 查询对象
+     * @param resultSet 结果集
+     */
+    public static ResultPlan getInstance(Query query, ResultSet resultSet) throws SQLException {
+        StringBuilder keyBuilder = new StringBuilder("resultPlan_" + query.entity.clazz.getName() + "_" + query.entity.tableName + "_" + query.tableAliasName + "_" + query.columnBuilder + "_" + query.windowCount);
+        if(query.compositField&&query.columnBuilder.length()==0){
+            for(SubQuery subQuery:query.subQueryList){
+                keyBuilder.append("_" + subQuery.entity.clazz.getName() + "_" + subQuery.entity.tableName + "_" + subQuery.tableAliasName + "_" + subQuery.compositField + "_" + query.subQueryList.indexOf(subQuery.parentSubQuery));
+            }
+        }
+        String key = keyBuilder.toString();
+        ResultPlan resultPlan = query.quickDAOConfig.resultPlanCache.get(key);
+        if(null==resultPlan){
+            resultPlan = new ResultPlan();
+            Map<String,Integer> columnLabelIndexMap = resultPlan.getColumnLabelIndexMap(resultSet);
+            if(query.windowCount){
+                resultPlan.windowCountColumnIndex = columnLabelIndexMap.get(AbstractDQLBuilder.WINDOW_COUNT_COLUMN);
+            }
+            if(query.columnBuilder.length()>0){
+                resultPlan.columnIndexes = matchColumnLabels(query.entity, resultPlan.columnLabels);
+            }else{
+                resultPlan.columnIndexes = getColumnIndexes(query.entity, query.tableAliasName, columnLabelIndexMap);
+                if(query.compositField){
+                    resultPlan.compileNestingPlan(query, columnLabelIndexMap);
+                }
+            }
+            query.quickDAOConfig.resultPlanCache.put(key,resultPlan);
+        }
+        return resultPlan;
+    }
+
+    /**
+     * 计算关联对象组装顺序
+     * @param query 查询对象
+     * @param columnLabelIndexMap 小写列名与列下标的映射
+     */
+    private void compileNestingPlan(Query query, Map<String,Integer> columnLabelIndexMap) {
+        List<SubQuery> subQueryList = query.subQueryList;
+        subQueryColumnIndexes = new int[subQueryList.size()][];
+        parentIndexes = new int[subQueryList.size()];
+        collectionFields = new boolean[subQueryList.size()];
+        subQueryIdColumnIndexes = new int[subQueryList.size()];
+        idColumnIndex = getIdColumnIndex(query.entity, columnIndexes);
+        for(int i=0;i<subQueryList.size();i++){
+            SubQuery subQuery = subQueryList.get(i);
+            parentIndexes[i] = subQueryList.indexOf(subQuery.parentSubQuery);
+            if(null==subQuery.compositField||subQuery.compositField.isEmpty()) {
+                continue;
+            }
+            subQueryColumnIndexes[i] = getColumnIndexes(subQuery.entity, subQuery.tableAliasName, columnLabelIndexMap);
+            subQueryIdColumnIndexes[i] = getIdColumnIndex(subQuery.entity, subQueryColumnIndexes[i]);
+            Entity parentEntity = null==subQuery.parentSubQuery?query.entity:subQuery.parentSubQuery.entity;
+            collectionFields[i] = EntityRowMapper.isCollectionField(parentEntity.clazz, subQuery.compositField);
+            oneToMany = oneToMany||collectionFields[i];
+        }
+    }
+
+    /**
+     * 获取id列下标
+     * @param entity 实体类信息
+     * @param columnIndexes 各属性对应的列下标
+     */
+    private static int getIdColumnIndex(Entity entity, int[] columnIndexes) {
+        int index = null==entity.id?-1:entity.properties.indexOf(entity.id);
+        return index<0?0:columnIndexes[index];
+    }
+
+    /**
+     * 读取结果集列名
+     * @param resultSet 结果集
+     * @return 小写列名与列下标的映射
+     */
+    private Map<String,Integer> getColumnLabelIndexMap(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        columnLabels = new String[metaData.getColumnCount()];
+        Map<String,Integer> columnLabelIndexMap = new HashMap<>();
+        for (int i = 1; i <= columnLabels.length; i++) {
+            columnLabels[i - 1] = metaData.getColumnLabel(i);
+            columnLabelIndexMap.putIfAbsent(columnLabels[i - 1].toLowerCase(), i);
+        }
+        return columnLabelIndexMap;
+    }
+
+    /**
+     * 根据表别名获取各属性对应的列下标
+     * @param entity 实体类信息
+     * @param tableAliasName 表别名
+     * @param columnLabelIndexMap 小写列名与列下标的映射
+     */
+    private static int[] getColumnIndexes(Entity entity, String tableAliasName, Map<String,Integer> columnLabelIndexMap) {
+        List<Property> properties = entity.properties;
+        int[] columnIndexes = new int[properties.size()];
+        for(int i=0;i<columnIndexes.length;i++){
+            Integer columnIndex = columnLabelIndexMap.get((tableAliasName + "_" + properties.get(i).column).toLowerCase());
+            columnIndexes[i] = null==columnIndex?0:columnIndex;
+        }
+        return columnIndexes;
+    }
+
+    /**
+     * 根据结果集列名匹配实体类属性
+     * <p>匹配规则与JSONObject转换实体类时一致,忽略大小写和下划线</p>
+     * @param entity 实体类信息
+     * @param columnLabels 结果集列名
+     */
+    private static int[] matchColumnLabels(Entity entity, String[] columnLabels) {
+        List<Property> properties = entity.properties;
+        int[] columnIndexes = new int[properties.size()];
+        for(int i=0;i<columnLabels.length;i++){
+            String label = columnLabels[i].replace("_","");
+            for(int j=0;j<properties.size();j++){
+                Property property = properties.get(j);
+                if(columnIndexes[j]==0&&(columnLabels[i].equalsIgnoreCase(property.column)||label.equalsIgnoreCase(property.name))){
+                    columnIndexes[j] = i + 1;
+                    break;
+                }
+            }
+        }
+        return columnIndexes;
+    }
+}
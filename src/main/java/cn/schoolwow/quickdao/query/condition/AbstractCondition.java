@@ -83,6 +83,12 @@ public class AbstractCondition<T> implements Condition<T>, Serializable,Cloneabl
         return addInQuery(field,values.toArray(new Object[0]));
     }
 
+    @Override
+    public Condition<T> addInQuery(String field, long[] values) {
+        addInQuery(field, values, "in");
+        return this;
+    }
+
     @Override
     public Condition<T> addNotInQuery(String field, String inQuery) {
         if(null==inQuery||inQuery.isEmpty()){
@@ -104,6 +110,12 @@ public class AbstractCondition<T> implements Condition<T>, Serializable,Cloneabl
         return addNotInQuery(field,values.toArray(new Object[0]));
     }
 
+    @Override
+    public Condition<T> addNotInQuery(String field, long[] values) {
+        addInQuery(field, values, "not in");
+        return this;
+    }
+
     @Override
     public Condition<T> addBetweenQuery(String field, Object start, Object end) {
         query.whereBuilder.append("(" + getQueryColumnNameByFieldName(field) + " between ? and ? ) and ");
@@ -424,12 +436,62 @@ public class AbstractCondition<T> implements Condition<T>, Serializable,Cloneabl
     @Override
     public Condition<T> limit(long offset, long limit) {
         query.limit = "limit " + offset + "," + limit;
+        query.limitCount = limit;
+        return this;
+    }
+
+    @Override
+    public Condition<T> fetchSize(int fetchSize) {
+        query.fetchSize = fetchSize;
+        return this;
+    }
+
+    @Override
+    public Condition<T> seek(int pageSize, String... fields) {
+        if(null==fields||fields.length==0){
+            throw new IllegalArgumentException("请指定keyset分页字段!");
+        }
+        query.seekFields = fields;
+        query.seekColumns = new String[fields.length];
+        for(int i=0;i<fields.length;i++){
+            query.seekColumns[i] = getQueryColumnNameByFieldName(fields[i]);
+        }
+        orderBy(fields);
+        limit(0,pageSize);
+        query.pageVo = new PageVo<>();
+        query.pageVo.setPageSize(pageSize);
+        query.pageVo.setCurrentPage(1);
+        return this;
+    }
+
+    @Override
+    public Condition<T> seekAfter(Object... lastValues) {
+        if(null==query.seekFields){
+            throw new IllegalArgumentException("请先调用seek()函数!");
+        }
+        if(null==lastValues||lastValues.length!=query.seekFields.length){
+            throw new IllegalArgumentException("keyset分页起始位置个数与分页字段个数不一致!");
+        }
+        query.seekValues = lastValues;
+        return this;
+    }
+
+    @Override
+    public Condition<T> pagingMode(PagingMode pagingMode) {
+        query.pagingMode = pagingMode;
+        return this;
+    }
+
+    @Override
+    public Condition<T> preCount() {
+        query.preCount = true;
         return this;
     }
 
     @Override
     public Condition<T> page(int pageNum, int pageSize) {
         query.limit = "limit " + (pageNum - 1) * pageSize + "," + pageSize;
+        query.limitCount = pageSize;
         query.pageVo = new PageVo<>();
         query.pageVo.setPageSize(pageSize);
         query.pageVo.setCurrentPage(pageNum);
@@ -554,6 +616,24 @@ public class AbstractCondition<T> implements Condition<T>, Serializable,Cloneabl
         query.parameterList.addAll(Arrays.asList(values));
     }
 
+    /**
+     * 添加in查询
+     * <p>long数组作为单个参数加入参数列表,设置参数时依次绑定到连续的占位符</p>
+     */
+    private void addInQuery(String field, long[] values, String in) {
+        if (null == values || values.length == 0) {
+            query.whereBuilder.append("( 1 = 2 ) and ");
+            return;
+        }
+        query.whereBuilder.append("(" + getQueryColumnNameByFieldName(field) + " " + in + " (");
+        for (int i = 0; i < values.length; i++) {
+            query.whereBuilder.append("?,");
+        }
+        query.whereBuilder.deleteCharAt(query.whereBuilder.length() - 1);
+        query.whereBuilder.append(") ) and ");
+        query.parameterList.add(values);
+    }
+
     /**添加exist查询*/
     private void addExistSubQuery(Condition subQuery, String exist) {
         subQuery.execute();
@@ -1,5 +1,6 @@
 package cn.schoolwow.quickdao.query.condition;
 
+import cn.schoolwow.quickdao.domain.PagingMode;
 import cn.schoolwow.quickdao.domain.Query;
 import cn.schoolwow.quickdao.domain.UnionType;
 import cn.schoolwow.quickdao.query.response.Response;
@@ -53,6 +54,15 @@ import java.util.Collection;
  *         joinTable(Parent.class,"fatherId","id","father").compositField();
  *         joinTable(Parent.class,"motherId","id","mother").compositField();
  *     </pre>
+ *     <p>一对多关联时需手动指定类型为List或者Set的成员变量,返回结果按主表id合并,关联表记录添加到集合中.合并时只比较相邻记录,请按主表id排序</p>
+ *     <pre>
+ *         Parent{
+ *             long id;
+ *             List&lt;Child&gt; childList;
+ *         }
+ *         //关联Parent类的childList属性
+ *         joinTable(Child.class,"id","parentId","childList").leftJoin().done().orderBy("id").compositField();
+ *     </pre>
  *     <p>若需返回关联实体字段,必须调用<b>compositField</b>方法</p>
  *     </li>
  *     <li>当您调用getArray方法,返回字段名称均为<b>表别名_字段名</b>.例如主表中的firstName字段,则返回字段名称为<b>t_first_name</b></li>
@@ -116,6 +126,13 @@ public interface Condition<T> extends Serializable {
      */
     Condition<T> addInQuery(String field, Collection values);
 
+    /**
+     * 添加范围查询语句,参数以long类型直接绑定
+     * @param field  字段名
+     * @param values 指明在该范围内的值
+     */
+    Condition<T> addInQuery(String field, long[] values);
+
     /**
      * 添加范围查询语句
      * @param field  字段名
@@ -137,6 +154,13 @@ public interface Condition<T> extends Serializable {
      */
     Condition<T> addNotInQuery(String field, Collection values);
 
+    /**
+     * 添加范围查询语句,参数以long类型直接绑定
+     * @param field  字段名
+     * @param values 指明在不该范围内的值
+     */
+    Condition<T> addNotInQuery(String field, long[] values);
+
     /**
      * 添加between语句
      * @param field 字段名
@@ -394,6 +418,49 @@ public interface Condition<T> extends Serializable {
      */
     Condition<T> page(int pageNum, int pageSize);
 
+    /**
+     * <p>keyset分页操作</p>
+     * <p>按指定字段升序排列,下一页从上一页最后一条记录之后开始读取,查询耗时与页码无关</p>
+     * <p>指定字段组合必须能唯一确定一条记录(通常包含id字段),且不能再调用orderBy,limit和page方法</p>
+     * <p>不支持关联集合类型成员变量的一对多关联查询</p>
+     *
+     * @param pageSize 每页个数
+     * @param fields   分页字段
+     * @see Response#getPagingList()
+     * @see Response#nextPage(String)
+     * @see Response#forEachPage(java.util.function.Consumer)
+     */
+    Condition<T> seek(int pageSize, String... fields);
+
+    /**
+     * 指定keyset分页起始位置,返回分页字段值在lastValues之后的记录
+     * <p><b>前置条件</b>:请先调用<b>{@link #seek(int, String...)}</b>方法</p>
+     *
+     * @param lastValues 上一页最后一条记录的分页字段值,与seek方法指定的分页字段一一对应
+     */
+    Condition<T> seekAfter(Object... lastValues);
+
+    /**
+     * 指定分页查询总记录数获取方式
+     * @param pagingMode 总记录数获取方式
+     * @see cn.schoolwow.quickdao.QuickDAO#pagingMode(PagingMode)
+     */
+    Condition<T> pagingMode(PagingMode pagingMode);
+
+    /**
+     * 设置游标读取时每次从数据库获取的行数
+     * <p>仅对{@link Response#iterator()},{@link Response#stream()}和{@link Response#forEach(java.util.function.Consumer)}方法生效</p>
+     *
+     * @param fetchSize 每次获取行数
+     */
+    Condition<T> fetchSize(int fetchSize);
+
+    /**
+     * <p>列表查询前先查询结果集行数,用于确定返回列表的初始容量</p>
+     * <p>开启后每次列表查询会额外执行一次count查询,默认关闭</p>
+     */
+    Condition<T> preCount();
+
     /**
      * 返回子表实体类字段信息
      * @see {@link cn.schoolwow.quickdao.query.condition.Condition#joinTable(Class, String, String)} ()}
@@ -12,12 +12,14 @@ public class PostgreCondition extends AbstractCondition{
     @Override
     public Condition limit(long offset, long limit) {
         query.limit = "limit " + limit + " offset " + offset;
+        query.limitCount = limit;
         return this;
     }
 
     @Override
     public Condition page(int pageNum, int pageSize) {
         query.limit = "limit " + pageSize + " offset " + (pageNum - 1) * pageSize;
+        query.limitCount = pageSize;
         query.pageVo = new PageVo<>();
         query.pageVo.setPageSize(pageSize);
         query.pageVo.setCurrentPage(pageNum);
@@ -25,6 +25,7 @@ public class SQLServerCondition extends AbstractCondition{
             throw new IllegalArgumentException("SQL Server的分页操作必须包含order子句!");
         }
         query.limit = "offset "+offset+" rows " + " fetch next "+limit+" rows only";
+        query.limitCount = limit;
         return this;
     }
 
@@ -34,6 +35,7 @@ public class SQLServerCondition extends AbstractCondition{
             throw new IllegalArgumentException("SQL Server的分页操作必须包含order子句!");
         }
         query.limit = "offset "+(pageNum - 1) * pageSize+" rows " + " fetch next "+pageSize+" rows only";
+        query.limitCount = pageSize;
         query.pageVo = new PageVo<>();
         query.pageVo.setPageSize(pageSize);
         query.pageVo.setCurrentPage(pageNum);
@@ -2,26 +2,38 @@ package cn.schoolwow.quickdao.query.response;
 
 import cn.schoolwow.quickdao.domain.*;
 import cn.schoolwow.quickdao.exception.SQLRuntimeException;
+import cn.schoolwow.quickdao.mapper.CompositAssembler;
+import cn.schoolwow.quickdao.mapper.EntityRowMapper;
+import cn.schoolwow.quickdao.mapper.ResultPlan;
+import cn.schoolwow.quickdao.util.QuickDAOUtil;
+import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class AbstractResponse<T> implements Response<T>{
     private Logger logger = LoggerFactory.getLogger(AbstractResponse.class);
+    /**列表默认初始容量*/
+    private static final int DEFAULT_CAPACITY = 10;
+    /**预估结果集容量上限*/
+    private static final int MAX_SIZE_HINT = 10000;
     /**查询对象参数*/
     public Query query;
 
@@ -31,21 +43,11 @@ public class AbstractResponse<T> implements Response<T>{
 
     @Override
     public long count() {
-        long count = 0;
-        query.parameterIndex = 1;
         try {
-            PreparedStatement ps = query.dqlBuilder.count(query);
-            ResultSet resultSet = ps.executeQuery();
-            if (resultSet.next()) {
-                count = resultSet.getLong(1);
-            }
-            resultSet.close();
-            ps.close();
+            return count(query);
         } catch (SQLException e) {
             throw new SQLRuntimeException(e);
         }
-        query.parameterIndex = 1;
-        return count;
     }
 
     @Override
@@ -53,19 +55,7 @@ public class AbstractResponse<T> implements Response<T>{
         int count = 0;
         try {
             if(null!=query.insertArray){
-                PreparedStatement[] preparedStatements = query.dqlBuilder.insertArray(query);
-                for(int i=0;i<preparedStatements.length;i++){
-                    count += preparedStatements[i].executeUpdate();
-                    if(count>0){
-                        ResultSet rs = preparedStatements[i].getGeneratedKeys();
-                        if (rs.next()) {
-                            query.insertArray.getJSONObject(i).put("generatedKeys",rs.getString(1));
-                        }
-                        rs.close();
-                    }
-                    preparedStatements[i].close();
-                }
-                query.dqlBuilder.connection.commit();
+                count = insertArray();
             }else{
                 PreparedStatement ps = query.dqlBuilder.insert(query);
                 count = ps.executeUpdate();
@@ -85,6 +75,79 @@ public class AbstractResponse<T> implements Response<T>{
         return count;
     }
 
+    /**
+     * 插入JSONArray,全部成功后提交,失败时回滚,结束后恢复连接原有的自动提交设置
+     * <p>事务中调用时不提交也不回滚</p>
+     * @return 插入行数
+     */
+    private int insertArray() throws SQLException {
+        Connection connection = query.dqlBuilder.connection;
+        boolean autoCommit = connection.getAutoCommit();
+        if(!query.transaction){
+            connection.setAutoCommit(false);
+        }
+        try {
+            int count = query.quickDAOConfig.database.isBatchGeneratedKeysSupported()?insertArrayBatch():insertArrayEach();
+            if(!query.transaction){
+                connection.commit();
+            }
+            return count;
+        } catch (SQLException|RuntimeException e) {
+            if(!query.transaction){
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if(!query.transaction){
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * 分批执行JSONArray插入,自增id按插入顺序回写
+     * @return 插入行数
+     */
+    private int insertArrayBatch() throws SQLException {
+        JSONArray array = query.insertArray;
+        int count = 0;
+        for(int from=0;from<array.size();from+=query.quickDAOConfig.batchSize){
+            int to = Math.min(from+query.quickDAOConfig.batchSize, array.size());
+            PreparedStatement ps = query.dqlBuilder.insertArrayBatch(query, from, to);
+            count += QuickDAOUtil.getBatchEffect(ps.executeBatch());
+            ResultSet rs = ps.getGeneratedKeys();
+            int index = from;
+            while(index<to&&rs.next()){
+                array.getJSONObject(index++).put("generatedKeys",rs.getString(1));
+            }
+            rs.close();
+            ps.close();
+        }
+        return count;
+    }
+
+    /**
+     * 逐条执行JSONArray插入,用于不支持批量返回自增id的数据库
+     * @return 插入行数
+     */
+    private int insertArrayEach() throws SQLException {
+        int count = 0;
+        PreparedStatement[] preparedStatements = query.dqlBuilder.insertArray(query);
+        for(int i=0;i<preparedStatements.length;i++){
+            int effect = preparedStatements[i].executeUpdate();
+            if(effect>0){
+                ResultSet rs = preparedStatements[i].getGeneratedKeys();
+                if (rs.next()) {
+                    query.insertArray.getJSONObject(i).put("generatedKeys",rs.getString(1));
+                }
+                rs.close();
+            }
+            count += effect;
+            preparedStatements[i].close();
+        }
+        return count;
+    }
+
     @Override
     public int update() {
         int count = 0;
@@ -113,6 +176,29 @@ public class AbstractResponse<T> implements Response<T>{
         return count;
     }
 
+    @Override
+    public long updateInChunks(int chunkSize) {
+        return updateInChunks(chunkSize, 0, null);
+    }
+
+    @Override
+    public long updateInChunks(int chunkSize, long pauseMillis, ChunkListener listener) {
+        if(query.setBuilder.length()==0){
+            throw new IllegalArgumentException("请先调用addUpdate()函数!");
+        }
+        return executeInChunks(true, chunkSize, pauseMillis, listener);
+    }
+
+    @Override
+    public long deleteInChunks(int chunkSize) {
+        return deleteInChunks(chunkSize, 0, null);
+    }
+
+    @Override
+    public long deleteInChunks(int chunkSize, long pauseMillis, ChunkListener listener) {
+        return executeInChunks(false, chunkSize, pauseMillis, listener);
+    }
+
     @Override
     public T getOne() {
         List<T> list = getList();
@@ -147,11 +233,13 @@ public class AbstractResponse<T> implements Response<T>{
     public <E> List<E> getSingleColumnList(Class<E> clazz) {
         try {
             PreparedStatement ps = query.dqlBuilder.getArray(query);
-            JSONArray array = new JSONArray(query.dqlBuilder.getResultSetRowCount(query));
             ResultSet resultSet = ps.executeQuery();
+            ResultPlan resultPlan = ResultPlan.getInstance(query, resultSet);
+            JSONArray array = new JSONArray(getInitialCapacity(resultPlan));
             while (resultSet.next()) {
                 array.add(resultSet.getString(1));
             }
+            updateSizeHint(resultPlan, array.size());
             resultSet.close();
             ps.close();
             return array.toJavaList(clazz);
@@ -160,6 +248,102 @@ public class AbstractResponse<T> implements Response<T>{
         }
     }
 
+    @Override
+    public long[] getLongArray() {
+        try {
+            PreparedStatement ps = query.dqlBuilder.getArray(query);
+            ResultSet resultSet = ps.executeQuery();
+            ResultPlan resultPlan = ResultPlan.getInstance(query, resultSet);
+            long[] array = new long[getInitialCapacity(resultPlan)];
+            int size = 0;
+            while (resultSet.next()) {
+                if(size==array.length){
+                    array = Arrays.copyOf(array, grow(size));
+                }
+                array[size++] = resultSet.getLong(1);
+            }
+            updateSizeHint(resultPlan, size);
+            MDC.put("count",size+"");
+            resultSet.close();
+            ps.close();
+            return size==array.length?array:Arrays.copyOf(array, size);
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    @Override
+    public int[] getIntArray() {
+        try {
+            PreparedStatement ps = query.dqlBuilder.getArray(query);
+            ResultSet resultSet = ps.executeQuery();
+            ResultPlan resultPlan = ResultPlan.getInstance(query, resultSet);
+            int[] array = new int[getInitialCapacity(resultPlan)];
+            int size = 0;
+            while (resultSet.next()) {
+                if(size==array.length){
+                    array = Arrays.copyOf(array, grow(size));
+                }
+                array[size++] = resultSet.getInt(1);
+            }
+            updateSizeHint(resultPlan, size);
+            MDC.put("count",size+"");
+            resultSet.close();
+            ps.close();
+            return size==array.length?array:Arrays.copyOf(array, size);
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    @Override
+    public double[] getDoubleArray() {
+        try {
+            PreparedStatement ps = query.dqlBuilder.getArray(query);
+            ResultSet resultSet = ps.executeQuery();
+            ResultPlan resultPlan = ResultPlan.getInstance(query, resultSet);
+            double[] array = new double[getInitialCapacity(resultPlan)];
+            int size = 0;
+            while (resultSet.next()) {
+                if(size==array.length){
+                    array = Arrays.copyOf(array, grow(size));
+                }
+                array[size++] = resultSet.getDouble(1);
+            }
+            updateSizeHint(resultPlan, size);
+            MDC.put("count",size+"");
+            resultSet.close();
+            ps.close();
+            return size==array.length?array:Arrays.copyOf(array, size);
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    @Override
+    public String[] getStringArray() {
+        try {
+            PreparedStatement ps = query.dqlBuilder.getArray(query);
+            ResultSet resultSet = ps.executeQuery();
+            ResultPlan resultPlan = ResultPlan.getInstance(query, resultSet);
+            String[] array = new String[getInitialCapacity(resultPlan)];
+            int size = 0;
+            while (resultSet.next()) {
+                if(size==array.length){
+                    array = Arrays.copyOf(array, grow(size));
+                }
+                array[size++] = resultSet.getString(1);
+            }
+            updateSizeHint(resultPlan, size);
+            MDC.put("count",size+"");
+            resultSet.close();
+            ps.close();
+            return size==array.length?array:Arrays.copyOf(array, size);
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
     @Override
     public List getList() {
         return getList(query.entity.clazz);
@@ -167,13 +351,58 @@ public class AbstractResponse<T> implements Response<T>{
 
     @Override
     public <E> List<E> getList(Class<E> clazz) {
-        return getArray().toJavaList(clazz);
+        List<E> list = null;
+        try {
+            PreparedStatement ps = query.dqlBuilder.getArray(query);
+            ResultSet resultSet = ps.executeQuery();
+            ResultPlan resultPlan = ResultPlan.getInstance(query, resultSet);
+            list = new ArrayList<>(getInitialCapacity(resultPlan));
+            ResponseCursor.RowMapper<E> rowMapper = getRowMapper(clazz, resultPlan);
+            while (resultSet.next()) {
+                E instance = rowMapper.mapRow(resultSet);
+                if(null!=instance){
+                    list.add(instance);
+                }
+            }
+            updateSizeHint(resultPlan, list.size());
+            MDC.put("count",list.size()+"");
+            resultSet.close();
+            ps.close();
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+        return list;
     }
 
     @Override
     public PageVo<T> getPagingList() {
-        query.pageVo.setList(getArray().toJavaList(query.entity.clazz));
-        setPageVo();
+        if (query.pageVo == null) {
+            throw new IllegalArgumentException("请先调用page()函数!");
+        }
+        if(null!=query.seekFields){
+            return getSeekPagingList();
+        }
+        PagingMode pagingMode = null==query.pagingMode?query.quickDAOConfig.pagingMode:query.pagingMode;
+        //窗口函数在distinct和union之前计算,此时无法得到正确的总记录数
+        if(PagingMode.WindowFunction.equals(pagingMode)&&(!query.distinct.isEmpty()||!query.unionList.isEmpty())){
+            pagingMode = PagingMode.Count;
+        }
+        //事务中未提交的数据对其他连接不可见
+        if(PagingMode.ConcurrentCount.equals(pagingMode)&&query.transaction){
+            pagingMode = PagingMode.Count;
+        }
+        switch (pagingMode){
+            case WindowFunction:{
+                getWindowPagingList();
+            }break;
+            case ConcurrentCount:{
+                getConcurrentPagingList();
+            }break;
+            default:{
+                query.pageVo.setList(getList(query.entity.clazz));
+                setPageVo(count());
+            }
+        }
         return query.pageVo;
     }
 
@@ -191,30 +420,17 @@ public class AbstractResponse<T> implements Response<T>{
         JSONArray array = null;
         try {
             PreparedStatement ps = query.dqlBuilder.getArray(query);
-            array = new JSONArray(query.dqlBuilder.getResultSetRowCount(query));
             ResultSet resultSet = ps.executeQuery();
-            if(query.columnBuilder.length()>0){
-                ResultSetMetaData metaData = resultSet.getMetaData();
-                String[] columnNames = new String[metaData.getColumnCount()];
-                for (int i = 1; i <= columnNames.length; i++) {
-                    columnNames[i - 1] = metaData.getColumnLabel(i);
-                }
-                while (resultSet.next()) {
-                    JSONObject o = new JSONObject(true);
-                    for (int i = 1; i <= columnNames.length; i++) {
-                        o.put(columnNames[i - 1], resultSet.getString(i));
-                    }
-                    array.add(o);
-                }
-            }else{
-                while (resultSet.next()) {
-                    JSONObject o = getObject(query.entity, query.tableAliasName, resultSet);
-                    if(query.compositField){
-                        getCompositObject(resultSet,o);
-                    }
+            ResultPlan resultPlan = ResultPlan.getInstance(query, resultSet);
+            array = new JSONArray(getInitialCapacity(resultPlan));
+            ResponseCursor.RowMapper<JSONObject> rowMapper = getRowObjectMapper(resultPlan);
+            while (resultSet.next()) {
+                JSONObject o = rowMapper.mapRow(resultSet);
+                if(null!=o){
                     array.add(o);
                 }
             }
+            updateSizeHint(resultPlan, array.size());
             MDC.put("count",array.size()+"");
             resultSet.close();
             ps.close();
@@ -224,99 +440,668 @@ public class AbstractResponse<T> implements Response<T>{
         return array;
     }
 
-    /**设置分页对象*/
-    private void setPageVo() {
-        if (query.pageVo == null) {
-            throw new IllegalArgumentException("请先调用page()函数!");
+    @Override
+    public ResponseCursor<T> iterator() {
+        return iterator(query.entity.clazz);
+    }
+
+    @Override
+    public <E> ResponseCursor<E> iterator(Class<E> clazz) {
+        try {
+            PreparedStatement ps = query.dqlBuilder.getCursor(query);
+            ResultSet resultSet = ps.executeQuery();
+            ResponseCursor.RowMapper<E> rowMapper = getRowMapper(clazz, ResultPlan.getInstance(query, resultSet));
+            //非事务查询时数据库连接交由游标管理,游标关闭时归还连接
+            Connection connection = null;
+            if(!query.transaction){
+                connection = query.dqlBuilder.connection;
+                query.dqlBuilder.connection = null;
+            }
+            return new ResponseCursor<>(connection, ps, resultSet, rowMapper);
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
         }
-        query.pageVo.setTotalSize(count());
-        query.pageVo.setTotalPage((int)(query.pageVo.getTotalSize() / query.pageVo.getPageSize() + (query.pageVo.getTotalSize() % query.pageVo.getPageSize() > 0 ? 1 : 0)));
-        query.pageVo.setHasMore(query.pageVo.getCurrentPage() < query.pageVo.getTotalPage());
     }
 
-    /**
-     * 获取子对象属性值
-     */
-    public static JSONObject getObject(Entity entity, String tableAliasName, ResultSet resultSet) throws SQLException {
-        JSONObject subObject = new JSONObject(true);
-        for (Property property : entity.properties) {
-            String columnName = tableAliasName + "_" + property.column;
-            String key = property.name==null?property.column:property.name;
-            if(null==property.simpleTypeName){
-                subObject.put(key, resultSet.getString(columnName));
-                continue;
+    @Override
+    public Stream<T> stream() {
+        return iterator().stream();
+    }
+
+    @Override
+    public <E> Stream<E> stream(Class<E> clazz) {
+        return iterator(clazz).stream();
+    }
+
+    @Override
+    public void forEach(Consumer<T> consumer) {
+        try (ResponseCursor<T> cursor = iterator()){
+            while (cursor.hasNext()) {
+                consumer.accept(cursor.next());
             }
-            switch (property.simpleTypeName) {
-                case "boolean": {
-                    subObject.put(key, resultSet.getBoolean(columnName));
+            MDC.put("count",cursor.getCount()+"");
+        }
+    }
+
+    @Override
+    public long parallelScan(String rangeField, int partitions, Consumer<T> consumer) {
+        if(partitions<1){
+            throw new IllegalArgumentException("分区个数必须大于0!");
+        }
+        if(query.groupByBuilder.length()>0||!query.unionList.isEmpty()){
+            throw new IllegalArgumentException("分区扫描不支持分组查询和union查询!");
+        }
+        String rangeColumn = query.tableAliasName + "." + query.quickDAOConfig.database.escape(query.entity.getColumnNameByFieldName(rangeField));
+        long[] range = getRange(rangeColumn);
+        if(null==range){
+            MDC.put("count","0");
+            return 0;
+        }
+        long step = (range[1] - range[0]) / partitions + 1;
+        List<Query> partitionQueryList = new ArrayList<>(partitions);
+        for(long start=range[0];start<=range[1]&&start>=range[0];start+=step){
+            Query partitionQuery = query.clone();
+            partitionQuery.rangeColumn = rangeColumn;
+            partitionQuery.rangeEndInclusive = range[1] - start < step;
+            partitionQuery.rangeValues = new Object[]{start, partitionQuery.rangeEndInclusive?range[1]:start + step};
+            partitionQueryList.add(partitionQuery);
+        }
+        long count = 0;
+        //事务中未提交的数据对其他连接不可见
+        if(query.transaction){
+            try {
+                for(Query partitionQuery:partitionQueryList){
+                    partitionQuery.dqlBuilder.connection = query.dqlBuilder.connection;
+                    count += scanPartition(partitionQuery, null, consumer, new AtomicBoolean());
                 }
-                break;
-                case "int":
-                case "integer": {
-                    subObject.put(key, resultSet.getInt(columnName));
+            } catch (SQLException e) {
+                throw new SQLRuntimeException(e);
+            }
+            MDC.put("count",count+"");
+            return count;
+        }
+        //任一分区失败时其他分区停止读取
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<Long>> futureList = new ArrayList<>(partitionQueryList.size());
+        for(Query partitionQuery:partitionQueryList){
+            futureList.add(query.quickDAOConfig.getExecutorService().submit(()->{
+                if(failed.get()){
+                    return 0L;
                 }
-                break;
-                case "float": {
-                    subObject.put(key, resultSet.getFloat(columnName));
+                try {
+                    Connection connection = partitionQuery.quickDAOConfig.dataSource.getConnection();
+                    partitionQuery.dqlBuilder.connection = connection;
+                    return scanPartition(partitionQuery, connection, consumer, failed);
+                }catch (Throwable e){
+                    failed.set(true);
+                    throw e;
+                }finally {
+                    MDC.clear();
+                    SQLLog.clear();
                 }
-                break;
-                case "long": {
-                    subObject.put(key, resultSet.getLong(columnName));
+            }));
+        }
+        //等待所有分区结束后再抛出异常,保证返回时各分区均已归还连接
+        //被中断时通过failed标志取消其他分区(未开始的分区直接返回,正在读取的分区停止读取),不使用Future.cancel,否则无法等待正在读取的分区结束
+        Throwable failure = null;
+        boolean interrupted = false;
+        for(Future<Long> future:futureList){
+            while(true){
+                try {
+                    count += future.get();
+                } catch (InterruptedException e) {
+                    failed.set(true);
+                    if(!interrupted){
+                        interrupted = true;
+                        if(null!=failure){
+                            e.addSuppressed(failure);
+                        }
+                        failure = e;
+                    }
+                    continue;
+                } catch (ExecutionException e) {
+                    if(null==failure){
+                        failure = e.getCause();
+                    }
                 }
                 break;
-                case "double": {
-                    subObject.put(key, resultSet.getDouble(columnName));
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+            throw new SQLRuntimeException(failure);
+        }
+        if(null!=failure){
+            if(failure instanceof RuntimeException){
+                throw (RuntimeException) failure;
+            }
+            if(failure instanceof Error){
+                throw (Error) failure;
+            }
+            throw new SQLRuntimeException(failure);
+        }
+        MDC.put("name","分区扫描");
+        MDC.put("count",count+"");
+        return count;
+    }
+
+    @Override
+    public PageVo<T> nextPage(String cursor) {
+        if(null==query.seekFields){
+            throw new IllegalArgumentException("请先调用seek()函数!");
+        }
+        query.seekValues = decodeSeekCursor(cursor);
+        query.pageVo.setCurrentPage(query.pageVo.getCurrentPage()+1);
+        return getSeekPagingList();
+    }
+
+    @Override
+    public void forEachPage(Consumer<PageVo<T>> consumer) {
+        PageVo<T> pageVo = getPagingList();
+        consumer.accept(pageVo);
+        while(null!=pageVo.getCursor()){
+            pageVo = nextPage(pageVo.getCursor());
+            consumer.accept(pageVo);
+        }
+    }
+
+    /**
+     * 分批更新或删除符合条件的记录
+     * <p>以id作为keyset分页字段依次查询下一批记录id,更新时已处理的记录即使仍符合条件也不会重复处理</p>
+     * <p>事务中调用时批次间不提交</p>
+     * @param update 是否为更新操作
+     * @param chunkSize 每批记录数
+     * @param pauseMillis 批次间暂停毫秒数
+     * @param listener 进度监听器
+     * @return 影响行数
+     */
+    private long executeInChunks(boolean update, int chunkSize, long pauseMillis, ChunkListener listener) {
+        if(chunkSize<=0){
+            throw new IllegalArgumentException("每批记录数必须大于0!");
+        }
+        if(null==query.entity.id){
+            throw new IllegalArgumentException("分批操作要求实体类包含id属性!表名:"+query.entity.tableName);
+        }
+        if(query.groupByBuilder.length()>0||!query.unionList.isEmpty()){
+            throw new IllegalArgumentException("分批操作不支持分组查询和union查询!");
+        }
+        chunkSize = Math.min(chunkSize, query.quickDAOConfig.database.getMaxInParameterCount());
+        String idColumn = query.tableAliasName + "." + query.quickDAOConfig.database.escape(query.entity.id.column);
+        Query idQuery = query.clone();
+        idQuery.columnBuilder = new StringBuilder(idColumn);
+        idQuery.distinct = idQuery.subQueryList.isEmpty()?"":"distinct";
+        idQuery.compositField = false;
+        idQuery.windowCount = false;
+        idQuery.orderByBuilder = new StringBuilder("order by " + idColumn);
+        idQuery.limit = getFirstRowsLimit(chunkSize);
+        idQuery.seekColumns = new String[]{idColumn};
+        idQuery.seekValues = null;
+        idQuery.rangeValues = null;
+        Connection connection = query.dqlBuilder.connection;
+        idQuery.dqlBuilder.connection = connection;
+        long count = 0;
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            if(!query.transaction){
+                connection.setAutoCommit(false);
+            }
+            try {
+                while(true){
+                    idQuery.parameterIndex = 1;
+                    List<Object> ids = new ArrayList<>(chunkSize);
+                    PreparedStatement ps = idQuery.dqlBuilder.getArray(idQuery);
+                    ResultSet resultSet = ps.executeQuery();
+                    while(resultSet.next()){
+                        ids.add(resultSet.getObject(1));
+                    }
+                    resultSet.close();
+                    ps.close();
+                    if(ids.isEmpty()){
+                        break;
+                    }
+                    ps = update?query.dqlBuilder.updateByIds(query, ids):query.dqlBuilder.deleteByIds(query, ids);
+                    int effect = ps.executeUpdate();
+                    ps.close();
+                    if(!query.transaction){
+                        connection.commit();
+                    }
+                    count += effect;
+                    if(null!=listener){
+                        listener.onChunk(effect, count);
+                    }
+                    if(ids.size()<chunkSize){
+                        break;
+                    }
+                    idQuery.seekValues = new Object[]{ids.get(ids.size()-1)};
+                    if(pauseMillis>0){
+                        Thread.sleep(pauseMillis);
+                    }
                 }
-                break;
-                case "string": {
-                    subObject.put(key, resultSet.getString(columnName));
+            } catch (SQLException|RuntimeException e) {
+                if(!query.transaction){
+                    connection.rollback();
                 }
-                break;
-                case "localdate": {
-                    Date date = resultSet.getTimestamp(columnName);
-                    if(null!=date){
-                        LocalDate localDate = Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
-                        subObject.put(key, localDate);
-                    }
+                throw e;
+            } finally {
+                if(!query.transaction){
+                    connection.setAutoCommit(autoCommit);
                 }
-                break;
-                case "localdatetime": {
-                    Date date = resultSet.getTimestamp(columnName);
-                    if(null!=date){
-                        LocalDateTime localDateTime = Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDateTime();
-                        subObject.put(key, localDateTime);
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLRuntimeException(e);
+        }
+        MDC.put("name",update?"分批更新":"分批删除");
+        MDC.put("count",count+"");
+        return count;
+    }
+
+    /**
+     * 获取范围字段的最小值和最大值
+     * @param rangeColumn 范围列名
+     * @return 最小值和最大值,无记录时返回null
+     */
+    private long[] getRange(String rangeColumn) {
+        Query rangeQuery = query.clone();
+        rangeQuery.columnBuilder = new StringBuilder("min(" + rangeColumn + "),max(" + rangeColumn + ")");
+        rangeQuery.distinct = "";
+        rangeQuery.compositField = false;
+        rangeQuery.windowCount = false;
+        rangeQuery.orderByBuilder.setLength(0);
+        rangeQuery.limit = "";
+        rangeQuery.parameterIndex = 1;
+        rangeQuery.dqlBuilder.connection = query.dqlBuilder.connection;
+        try {
+            PreparedStatement ps = rangeQuery.dqlBuilder.getArray(rangeQuery);
+            ResultSet resultSet = ps.executeQuery();
+            long[] range = null;
+            if(resultSet.next()){
+                Object min = resultSet.getObject(1);
+                Object max = resultSet.getObject(2);
+                if(null!=min){
+                    if(!(min instanceof Number)||min instanceof Float||min instanceof Double){
+                        throw new IllegalArgumentException("分区扫描范围字段必须为整数类型!");
                     }
+                    range = new long[]{((Number) min).longValue(), ((Number) max).longValue()};
                 }
-                break;
-                default: {
-                    subObject.put(key, resultSet.getObject(columnName));
+            }
+            resultSet.close();
+            ps.close();
+            return range;
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    /**
+     * 读取单个分区
+     * @param partitionQuery 分区查询对象
+     * @param connection 分区独占的数据库连接,读取完毕后归还.在事务中读取时为null
+     * @param consumer 处理函数
+     * @param failed 其他分区是否已失败,失败后停止读取
+     * @return 读取行数
+     */
+    private long scanPartition(Query partitionQuery, Connection connection, Consumer<T> consumer, AtomicBoolean failed) throws SQLException {
+        partitionQuery.parameterIndex = 1;
+        PreparedStatement ps = null;
+        ResultSet resultSet = null;
+        ResponseCursor.RowMapper<T> rowMapper = null;
+        try {
+            ps = partitionQuery.dqlBuilder.getCursor(partitionQuery);
+            resultSet = ps.executeQuery();
+            rowMapper = getRowMapper(partitionQuery.entity.clazz, ResultPlan.getInstance(partitionQuery, resultSet));
+        } catch (SQLException|RuntimeException e) {
+            if(null!=connection){
+                connection.close();
+            }
+            throw e;
+        }
+        try (ResponseCursor<T> cursor = new ResponseCursor<>(connection, ps, resultSet, rowMapper)){
+            while (!failed.get()&&cursor.hasNext()) {
+                consumer.accept(cursor.next());
+            }
+            return cursor.getCount();
+        }
+    }
+
+    /**
+     * 获取keyset分页记录
+     * <p>keyset分页不查询总记录数,多查询一条记录判断是否存在下一页</p>
+     */
+    private PageVo<T> getSeekPagingList() {
+        int pageSize = query.pageVo.getPageSize();
+        List<T> list = null;
+        Object[] lastValues = null;
+        boolean hasMore = false;
+        String limit = query.limit;
+        query.limit = getFirstRowsLimit(pageSize+1);
+        try {
+            PreparedStatement ps = query.dqlBuilder.getArray(query);
+            ResultSet resultSet = ps.executeQuery();
+            ResultPlan resultPlan = ResultPlan.getInstance(query, resultSet);
+            //一对多关联时多行记录组成一个主表对象,按行截断会丢失下一页开头的关联记录
+            if(resultPlan.oneToMany){
+                resultSet.close();
+                ps.close();
+                throw new IllegalArgumentException("keyset分页不支持一对多关联查询!");
+            }
+            int[] seekColumnIndexes = getSeekColumnIndexes(resultPlan);
+            list = new ArrayList<>(pageSize);
+            ResponseCursor.RowMapper<T> rowMapper = getRowMapper(query.entity.clazz, resultPlan);
+            int rowCount = 0;
+            while (resultSet.next()) {
+                if(rowCount==pageSize){
+                    hasMore = true;
+                    break;
+                }
+                T instance = rowMapper.mapRow(resultSet);
+                if(null!=instance){
+                    list.add(instance);
+                }
+                if(++rowCount==pageSize){
+                    lastValues = new Object[seekColumnIndexes.length];
+                    for(int i=0;i<lastValues.length;i++){
+                        lastValues[i] = resultSet.getObject(seekColumnIndexes[i]);
+                    }
                 }
             }
+            MDC.put("count",list.size()+"");
+            resultSet.close();
+            ps.close();
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        } finally {
+            query.limit = limit;
+        }
+        PageVo<T> pageVo = new PageVo<>();
+        pageVo.setList(list);
+        pageVo.setPageSize(pageSize);
+        pageVo.setCurrentPage(query.pageVo.getCurrentPage());
+        pageVo.setHasMore(hasMore);
+        pageVo.setCursor(hasMore?encodeSeekCursor(lastValues):null);
+        query.pageVo = pageVo;
+        return pageVo;
+    }
+
+    /**
+     * 获取只返回前count条记录的limit语句
+     * @param count 记录数
+     */
+    private String getFirstRowsLimit(long count) {
+        if(Database.SQLServer.equals(query.quickDAOConfig.database)){
+            return "offset 0 rows fetch next " + count + " rows only";
+        }
+        return "limit " + count;
+    }
+
+    /**
+     * 获取keyset分页字段对应的列下标
+     * @param resultPlan 结果集读取计划
+     */
+    private int[] getSeekColumnIndexes(ResultPlan resultPlan) {
+        int[] seekColumnIndexes = new int[query.seekFields.length];
+        List<Property> properties = query.entity.properties;
+        for(int i=0;i<seekColumnIndexes.length;i++){
+            Property property = query.entity.getPropertyByFieldName(query.seekFields[i]);
+            int propertyIndex = properties.indexOf(property);
+            if(propertyIndex<0||resultPlan.columnIndexes[propertyIndex]==0){
+                throw new IllegalArgumentException("keyset分页字段必须包含在返回列中!字段名:"+query.seekFields[i]);
+            }
+            seekColumnIndexes[i] = resultPlan.columnIndexes[propertyIndex];
         }
-        return subObject;
+        return seekColumnIndexes;
+    }
+
+    /**
+     * 生成keyset分页游标
+     * @param lastValues 最后一条记录的分页字段值
+     */
+    private static String encodeSeekCursor(Object[] lastValues) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(JSON.toJSONString(lastValues).getBytes(StandardCharsets.UTF_8));
     }
 
-    private void getCompositObject(ResultSet resultSet, JSONObject o) throws SQLException {
-        for (SubQuery subQuery : query.subQueryList) {
-            if(null==subQuery.compositField||subQuery.compositField.isEmpty()) {
+    /**
+     * 解析keyset分页游标
+     * @param cursor 游标
+     */
+    private Object[] decodeSeekCursor(String cursor) {
+        JSONArray array = JSON.parseArray(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        if(array.size()!=query.seekFields.length){
+            throw new IllegalArgumentException("keyset分页游标与分页字段个数不一致!");
+        }
+        Object[] lastValues = new Object[array.size()];
+        for(int i=0;i<lastValues.length;i++){
+            Property property = query.entity.getPropertyByFieldName(query.seekFields[i]);
+            if(null==property||null==property.className){
+                lastValues[i] = array.get(i);
                 continue;
             }
-            JSONObject subObject = getObject(subQuery.entity, subQuery.tableAliasName, resultSet);
-            SubQuery parentSubQuery = subQuery.parentSubQuery;
-            if (parentSubQuery == null) {
-                o.put(subQuery.compositField, subObject);
-            } else {
-                List<String> fieldNames = new ArrayList<>();
-                while (parentSubQuery != null) {
-                    fieldNames.add(parentSubQuery.compositField);
-                    parentSubQuery = parentSubQuery.parentSubQuery;
+            try {
+                lastValues[i] = array.getObject(i, getPropertyType(property.className));
+            } catch (ClassNotFoundException e) {
+                lastValues[i] = array.get(i);
+            }
+        }
+        return lastValues;
+    }
+
+    /**
+     * 根据类名获取属性类型
+     * @param className 类名
+     */
+    private static Class getPropertyType(String className) throws ClassNotFoundException {
+        switch (className){
+            case "boolean":return boolean.class;
+            case "int":return int.class;
+            case "float":return float.class;
+            case "long":return long.class;
+            case "double":return double.class;
+            default:return Class.forName(className);
+        }
+    }
+
+    /**
+     * 通过窗口函数在分页查询中同时获取总记录数
+     */
+    private void getWindowPagingList() {
+        List list = null;
+        long totalSize = 0;
+        query.windowCount = true;
+        try {
+            PreparedStatement ps = query.dqlBuilder.getArray(query);
+            ResultSet resultSet = ps.executeQuery();
+            ResultPlan resultPlan = ResultPlan.getInstance(query, resultSet);
+            list = new ArrayList<>(getInitialCapacity(resultPlan));
+            ResponseCursor.RowMapper rowMapper = getRowMapper(query.entity.clazz, resultPlan);
+            while (resultSet.next()) {
+                if(list.isEmpty()){
+                    totalSize = resultSet.getLong(resultPlan.windowCountColumnIndex);
+                }
+                Object instance = rowMapper.mapRow(resultSet);
+                if(null!=instance){
+                    list.add(instance);
+                }
+            }
+            updateSizeHint(resultPlan, list.size());
+            MDC.put("count",list.size()+"");
+            resultSet.close();
+            ps.close();
+            //超出最后一页时无法从结果集获取总记录数
+            if(list.isEmpty()&&query.pageVo.getCurrentPage()>1){
+                totalSize = count(query);
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        } finally {
+            query.windowCount = false;
+        }
+        query.pageVo.setList(list);
+        setPageVo(totalSize);
+    }
+
+    /**
+     * 使用另一个数据库连接并发执行count查询
+     */
+    private void getConcurrentPagingList() {
+        Query countQuery = query.clone();
+        if(null==countQuery){
+            query.pageVo.setList(getList(query.entity.clazz));
+            setPageVo(count());
+            return;
+        }
+        Future<Long> future = query.quickDAOConfig.getExecutorService().submit(()->{
+            try (Connection connection = countQuery.quickDAOConfig.dataSource.getConnection()){
+                countQuery.dqlBuilder.connection = connection;
+                return count(countQuery);
+            }
+        });
+        try {
+            query.pageVo.setList(getList(query.entity.clazz));
+            setPageVo(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLRuntimeException(e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SQLRuntimeException(e.getCause());
+        } finally {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * 执行count查询
+     * @param query 查询对象
+     */
+    private static long count(Query query) throws SQLException {
+        long count = 0;
+        query.parameterIndex = 1;
+        PreparedStatement ps = query.dqlBuilder.count(query);
+        ResultSet resultSet = ps.executeQuery();
+        if (resultSet.next()) {
+            count = resultSet.getLong(1);
+        }
+        resultSet.close();
+        ps.close();
+        query.parameterIndex = 1;
+        return count;
+    }
+
+    /**
+     * 设置分页对象
+     * @param totalSize 总记录数
+     */
+    private void setPageVo(long totalSize) {
+        query.pageVo.setTotalSize(totalSize);
+        query.pageVo.setTotalPage((int)(query.pageVo.getTotalSize() / query.pageVo.getPageSize() + (query.pageVo.getTotalSize() % query.pageVo.getPageSize() > 0 ? 1 : 0)));
+        query.pageVo.setHasMore(query.pageVo.getCurrentPage() < query.pageVo.getTotalPage());
+    }
+
+    /**
+     * 预估结果集行数
+     * <p>开启预查询时执行count查询,否则根据分页个数和同结构查询的历史行数估算</p>
+     * @param resultPlan 结果集读取计划
+     */
+    private int getInitialCapacity(ResultPlan resultPlan) throws SQLException {
+        if(query.preCount){
+            return Math.max(query.dqlBuilder.getResultSetRowCount(query), 0);
+        }
+        int capacity = resultPlan.sizeHint>0?resultPlan.sizeHint:DEFAULT_CAPACITY;
+        if(query.limitCount>0&&query.limitCount<capacity){
+            capacity = (int) query.limitCount;
+        }
+        return capacity;
+    }
+
+    /**
+     * 记录本次查询返回行数
+     * @param resultPlan 结果集读取计划
+     * @param size 返回行数
+     */
+    private void updateSizeHint(ResultPlan resultPlan, int size) {
+        resultPlan.sizeHint = Math.min(size, MAX_SIZE_HINT);
+    }
+
+    /**
+     * 计算数组扩容后的长度
+     * @param length 当前长度
+     */
+    private static int grow(int length) {
+        return length + (length >> 1) + 1;
+    }
+
+    /**
+     * 获取行映射器
+     * <p>存在一对多关联时,合并到之前对象中的行映射结果为null</p>
+     * @param clazz 返回类型
+     * @param resultPlan 结果集读取计划
+     */
+    private <E> ResponseCursor.RowMapper<E> getRowMapper(Class<E> clazz, ResultPlan resultPlan) {
+        if(isEntityMappable(clazz)){
+            if(query.compositField&&query.columnBuilder.length()==0){
+                CompositAssembler compositAssembler = new CompositAssembler(query, resultPlan, false);
+                return (resultSet)->(E) compositAssembler.assemble(resultSet);
+            }
+            EntityRowMapper entityRowMapper = EntityRowMapper.getInstance(query.entity);
+            return (resultSet)->(E) entityRowMapper.mapRow(resultSet, resultPlan.columnIndexes);
+        }
+        ResponseCursor.RowMapper<JSONObject> rowObjectMapper = getRowObjectMapper(resultPlan);
+        if(null==clazz||JSONObject.class.equals(clazz)){
+            return (ResponseCursor.RowMapper<E>) rowObjectMapper;
+        }
+        return (resultSet)->{
+            JSONObject o = rowObjectMapper.mapRow(resultSet);
+            return null==o?null:o.toJavaObject(clazz);
+        };
+    }
+
+    /**
+     * 获取将结果集当前行转换为JSONObject对象的行映射器
+     * @param resultPlan 结果集读取计划
+     */
+    private ResponseCursor.RowMapper<JSONObject> getRowObjectMapper(ResultPlan resultPlan) {
+        if(query.columnBuilder.length()>0){
+            String[] columnNames = resultPlan.columnLabels;
+            return (resultSet)->{
+                JSONObject o = new JSONObject(true);
+                for (int i = 1; i <= columnNames.length; i++) {
+                    if(i==resultPlan.windowCountColumnIndex){
+                        continue;
+                    }
+                    o.put(columnNames[i - 1], resultSet.getString(i));
+                }
+                return o;
+            };
+        }
+        if(query.compositField){
+            CompositAssembler compositAssembler = new CompositAssembler(query, resultPlan, true);
+            return (resultSet)->(JSONObject) compositAssembler.assemble(resultSet);
+        }
+        return (resultSet)->QuickDAOUtil.getObject(query.entity, resultPlan.columnIndexes, resultSet);
+    }
+
+    /**
+     * 是否可以直接将结果集映射为实体类
+     * @param clazz 返回类型
+     */
+    private boolean isEntityMappable(Class clazz) {
+        if(null==clazz||!clazz.equals(query.entity.clazz)||!EntityRowMapper.getInstance(query.entity).isSupported()){
+            return false;
+        }
+        if(query.compositField&&query.columnBuilder.length()==0){
+            for (SubQuery subQuery : query.subQueryList) {
+                if(null==subQuery.compositField||subQuery.compositField.isEmpty()) {
+                    continue;
                 }
-                JSONObject oo = o;
-                for (int i = fieldNames.size() - 1; i >= 0; i--) {
-                    oo = oo.getJSONObject(fieldNames.get(i));
+                if(!EntityRowMapper.getInstance(subQuery.entity).isSupported()){
+                    return false;
                 }
-                oo.put(subQuery.compositField, subObject);
             }
         }
+        return true;
     }
 }
@@ -0,0 +1,13 @@
+package cn.schoolwow.quickdao.query.response;
+
+/**
+ * 分批更新删除进度监听器
+ */
+public interface ChunkListener {
+    /**
+     * 每个批次执行完毕后调用
+     * @param chunkRows 当前批次影响行数
+     * @param totalRows 累计影响行数
+     */
+    void onChunk(int chunkRows, long totalRows);
+}
@@ -5,6 +5,8 @@ import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface Response<T> {
     /**
@@ -30,6 +32,42 @@ public interface Response<T> {
      */
     int delete();
 
+    /**
+     * <p>分批更新符合条件的记录</p>
+     * <p>按id顺序每次查询一批符合条件的记录id并根据id更新,每批单独提交,避免长时间锁定大量记录</p>
+     * <p><b>前置条件</b>:请先调用<b>{@link cn.schoolwow.quickdao.query.condition.Condition#addUpdate(String, Object)}</b>方法</p>
+     * @param chunkSize 每批记录数
+     * @return 更新行数
+     */
+    long updateInChunks(int chunkSize);
+
+    /**
+     * <p>分批更新符合条件的记录</p>
+     * <p><b>前置条件</b>:请先调用<b>{@link cn.schoolwow.quickdao.query.condition.Condition#addUpdate(String, Object)}</b>方法</p>
+     * @param chunkSize 每批记录数
+     * @param pauseMillis 批次间暂停毫秒数
+     * @param listener 进度监听器,可为null
+     * @return 更新行数
+     */
+    long updateInChunks(int chunkSize, long pauseMillis, ChunkListener listener);
+
+    /**
+     * <p>分批删除符合条件的记录</p>
+     * <p>按id顺序每次查询一批符合条件的记录id并根据id删除,每批单独提交,避免长时间锁定大量记录</p>
+     * @param chunkSize 每批记录数
+     * @return 删除行数
+     */
+    long deleteInChunks(int chunkSize);
+
+    /**
+     * 分批删除符合条件的记录
+     * @param chunkSize 每批记录数
+     * @param pauseMillis 批次间暂停毫秒数
+     * @param listener 进度监听器,可为null
+     * @return 删除行数
+     */
+    long deleteInChunks(int chunkSize, long pauseMillis, ChunkListener listener);
+
     /**
      * <p>获取符合条件的数据库记录的第一条</p>
      * <p>若无符合条件的数据库记录,返回Null</p>
@@ -56,6 +94,26 @@ public interface Response<T> {
      */
     <E> E getSingleColumn(Class<E> clazz);
 
+    /**
+     * 以long数组返回查询结果的第一列,值为null时返回0
+     */
+    long[] getLongArray();
+
+    /**
+     * 以int数组返回查询结果的第一列,值为null时返回0
+     */
+    int[] getIntArray();
+
+    /**
+     * 以double数组返回查询结果的第一列,值为null时返回0
+     */
+    double[] getDoubleArray();
+
+    /**
+     * 以字符串数组返回查询结果的第一列
+     */
+    String[] getStringArray();
+
     /**
      * 返回符合条件的数据库记录
      */
@@ -74,6 +132,22 @@ public interface Response<T> {
      */
     PageVo<T> getPagingList();
 
+    /**
+     * <p>返回keyset分页的下一页记录</p>
+     * <p><b>注意:</b>调用此方法时必须调用keyset分页方法</p>
+     * @param cursor 上一页返回的游标{@link PageVo#getCursor()}
+     * @see cn.schoolwow.quickdao.query.condition.Condition#seek(int, String...)
+     */
+    PageVo<T> nextPage(String cursor);
+
+    /**
+     * <p>按keyset分页依次读取所有页并交由consumer处理,每页查询耗时与页码无关</p>
+     * <p><b>注意:</b>调用此方法时必须调用keyset分页方法</p>
+     * @param consumer 处理函数
+     * @see cn.schoolwow.quickdao.query.condition.Condition#seek(int, String...)
+     */
+    void forEachPage(Consumer<PageVo<T>> consumer);
+
     /**
      * 返回符合条件的第一条数据库记录
      */
@@ -84,4 +158,52 @@ public interface Response<T> {
      */
     JSONArray getArray();
 
+    /**
+     * <p>以游标方式逐行读取符合条件的数据库记录</p>
+     * <p>游标关闭前会一直占用数据库连接,请在使用完毕后关闭游标</p>
+     * @see cn.schoolwow.quickdao.query.condition.Condition#fetchSize(int)
+     */
+    ResponseCursor<T> iterator();
+
+    /**
+     * <p>以游标方式逐行读取符合条件的数据库记录</p>
+     * <p>游标关闭前会一直占用数据库连接,请在使用完毕后关闭游标</p>
+     * @param clazz 返回类型
+     * @see cn.schoolwow.quickdao.query.condition.Condition#fetchSize(int)
+     */
+    <E> ResponseCursor<E> iterator(Class<E> clazz);
+
+    /**
+     * <p>以流方式逐行读取符合条件的数据库记录</p>
+     * <p>流关闭前会一直占用数据库连接,请使用try-with-resources语句确保流被关闭</p>
+     * @see cn.schoolwow.quickdao.query.condition.Condition#fetchSize(int)
+     */
+    Stream<T> stream();
+
+    /**
+     * <p>以流方式逐行读取符合条件的数据库记录</p>
+     * <p>流关闭前会一直占用数据库连接,请使用try-with-resources语句确保流被关闭</p>
+     * @param clazz 返回类型
+     * @see cn.schoolwow.quickdao.query.condition.Condition#fetchSize(int)
+     */
+    <E> Stream<E> stream(Class<E> clazz);
+
+    /**
+     * 逐行读取符合条件的数据库记录并交由consumer处理
+     * @param consumer 处理函数
+     * @see cn.schoolwow.quickdao.query.condition.Condition#fetchSize(int)
+     */
+    void forEach(Consumer<T> consumer);
+
+    /**
+     * <p>按范围字段将符合条件的记录划分为多个分区,各分区使用独立的数据库连接并发读取并交由consumer处理</p>
+     * <p>范围字段必须为整数类型,分区范围根据范围字段的最小值和最大值均分.consumer会在多个线程中同时调用,需保证线程安全</p>
+     * <p>事务中调用时各分区依次在事务连接中读取</p>
+     * @param rangeField 范围字段,一般为自增id
+     * @param partitions 分区个数
+     * @param consumer 处理函数
+     * @return 读取行数
+     */
+    long parallelScan(String rangeField, int partitions, Consumer<T> consumer);
+
 }
@@ -0,0 +1,151 @@
+package cn.schoolwow.quickdao.query.response;
+
+import cn.schoolwow.quickdao.exception.SQLRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 查询结果游标
+ * <p>逐行读取结果集并映射为对象,游标关闭前会一直占用数据库连接.</p>
+ * <p>结果集读取完毕时游标会自动关闭,提前结束读取时请调用{@link #close()}方法或使用try-with-resources语句</p>
+ */
+public class ResponseCursor<E> implements Iterator<E>, AutoCloseable {
+    private Logger logger = LoggerFactory.getLogger(ResponseCursor.class);
+    /**游标独占的数据库连接,在事务中读取时为null*/
+    private Connection connection;
+    /**查询语句*/
+    private PreparedStatement ps;
+    /**结果集*/
+    private ResultSet resultSet;
+    /**行映射器*/
+    private RowMapper<E> rowMapper;
+    /**下一个待返回对象*/
+    private E nextElement;
+    /**已映射但尚未确定是否读取完整的对象(一对多关联时后续行可能继续填充该对象)*/
+    private E pendingElement;
+    /**已读取行数*/
+    private long count;
+    /**是否已关闭*/
+    private boolean closed;
+
+    ResponseCursor(Connection connection, PreparedStatement ps, ResultSet resultSet, RowMapper<E> rowMapper) {
+        this.connection = connection;
+        this.ps = ps;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(null!=nextElement){
+            return true;
+        }
+        if(closed){
+            return false;
+        }
+        try {
+            while(resultSet.next()){
+                count++;
+                E element = rowMapper.mapRow(resultSet);
+                //当前行已合并到之前的对象中
+                if(null==element){
+                    continue;
+                }
+                if(null==pendingElement){
+                    pendingElement = element;
+                    continue;
+                }
+                nextElement = pendingElement;
+                pendingElement = element;
+                return true;
+            }
+        } catch (SQLException e) {
+            close();
+            throw new SQLRuntimeException(e);
+        }
+        nextElement = pendingElement;
+        pendingElement = null;
+        close();
+        return null!=nextElement;
+    }
+
+    @Override
+    public E next() {
+        if(!hasNext()){
+            throw new NoSuchElementException();
+        }
+        E element = nextElement;
+        nextElement = null;
+        return element;
+    }
+
+    /**
+     * 转换为流,关闭流时会同时关闭游标
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED|Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    /**已读取行数*/
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() {
+        if(closed){
+            return;
+        }
+        closed = true;
+        try {
+            resultSet.close();
+            ps.close();
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        } finally {
+            releaseConnection();
+        }
+        logger.debug("[游标读取]关闭游标,读取行数:{}", count);
+    }
+
+    /**归还游标独占的数据库连接*/
+    private void releaseConnection() {
+        if(null==connection){
+            return;
+        }
+        try {
+            if(!connection.getAutoCommit()){
+                connection.commit();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.warn("[游标读取]关闭数据库连接失败", e);
+            }
+        }
+    }
+
+    /**行映射器*/
+    interface RowMapper<E> {
+        /**
+         * 将结果集当前行映射为对象
+         * @param resultSet 结果集
+         */
+        E mapRow(ResultSet resultSet) throws SQLException;
+    }
+}
@@ -1,6 +1,6 @@
 package cn.schoolwow.quickdao.query.response;
 
-import cn.schoolwow.quickdao.domain.Interceptor;
+import cn.schoolwow.quickdao.domain.SQLLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -26,31 +26,19 @@ public class ResponseInvocationHandler implements InvocationHandler {
             long startTime = System.currentTimeMillis();
             Object result = method.invoke(abstractResponse, args);
             long endTime = System.currentTimeMillis();
-            if(null!=MDC.get("name")){
-                if(null==MDC.get("count")){
-                    logger.debug("[{}]耗时:{}ms,执行SQL:{}",MDC.get("name"), endTime-startTime,MDC.get("sql"));
-                }else{
-                    logger.debug("[{}]行数:{},耗时:{}ms,执行SQL:{}",MDC.get("name"), MDC.get("count"),endTime-startTime,MDC.get("sql"));
-                }
-            }
-            for(Interceptor interceptor:abstractResponse.query.quickDAOConfig.interceptorList){
-                interceptor.afterExecuteConnection(MDC.get("name"),MDC.get("sql"));
-            }
+            SQLLog.logExecution(logger, abstractResponse.query.quickDAOConfig, endTime - startTime);
             return result;
         }catch (InvocationTargetException e){
-            if(null!=MDC.get("name")){
-                logger.warn("[{}]原始SQL:{}",MDC.get("name"),MDC.get("sql"));
-            }
-            for(Interceptor interceptor:abstractResponse.query.quickDAOConfig.interceptorList){
-                interceptor.afterExecuteConnection(MDC.get("name"),MDC.get("sql"));
-            }
+            SQLLog.logFailure(logger, abstractResponse.query.quickDAOConfig);
             throw e.getTargetException();
         }finally {
             abstractResponse.query.parameterIndex = 1;
-            if(!abstractResponse.query.transaction){
+            //游标读取时数据库连接由游标负责关闭
+            if(!abstractResponse.query.transaction&&null!=abstractResponse.query.dqlBuilder.connection){
                 abstractResponse.query.dqlBuilder.connection.close();
             }
             MDC.clear();
+            SQLLog.clear();
         }
     }
 }
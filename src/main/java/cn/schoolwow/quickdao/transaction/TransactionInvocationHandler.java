@@ -2,8 +2,8 @@ package cn.schoolwow.quickdao.transaction;
 
 import cn.schoolwow.quickdao.dao.sql.ddl.AbstractDDLDAO;
 import cn.schoolwow.quickdao.dao.sql.dml.AbstractDMLDAO;
-import cn.schoolwow.quickdao.domain.Interceptor;
 import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.domain.SQLLog;
 import cn.schoolwow.quickdao.query.AbstractCompositQuery;
 import cn.schoolwow.quickdao.query.CompositQuery;
 import cn.schoolwow.quickdao.query.condition.AbstractCondition;
@@ -36,6 +36,7 @@ public class TransactionInvocationHandler implements InvocationHandler {
         this.ddldao.sqlBuilder.connection = connection;
         this.dmldao = new AbstractDMLDAO(quickDAOConfig);
         this.dmldao.sqlBuilder.connection = connection;
+        this.dmldao.transaction = true;
         this.connection = connection;
     }
 
@@ -67,27 +68,14 @@ public class TransactionInvocationHandler implements InvocationHandler {
                 break;
             }
             long endTime = System.currentTimeMillis();
-            if (null != MDC.get("name")) {
-                if (null == MDC.get("count")) {
-                    logger.debug("[{}]耗时:{}ms,执行SQL:{}", MDC.get("name"), endTime - startTime, MDC.get("sql"));
-                } else {
-                    logger.debug("[{}]行数:{},耗时:{}ms,执行SQL:{}", MDC.get("name"), MDC.get("count"), endTime - startTime, MDC.get("sql"));
-                }
-            }
-            for(Interceptor interceptor:quickDAOConfig.interceptorList){
-                interceptor.afterExecuteConnection(MDC.get("name"),MDC.get("sql"));
-            }
+            SQLLog.logExecution(logger, quickDAOConfig, endTime - startTime);
             return result;
         } catch (InvocationTargetException e) {
-            if (null != MDC.get("name")) {
-                logger.warn("[{}]原始SQL:{}", MDC.get("name"), MDC.get("sql"));
-            }
-            for(Interceptor interceptor:quickDAOConfig.interceptorList){
-                interceptor.afterExecuteConnection(MDC.get("name"),MDC.get("sql"));
-            }
+            SQLLog.logFailure(logger, quickDAOConfig);
             throw e.getTargetException();
         } finally {
             MDC.clear();
+            SQLLog.clear();
         }
     }
 }
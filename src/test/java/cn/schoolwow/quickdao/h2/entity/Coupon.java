@@ -0,0 +1,42 @@
+package cn.schoolwow.quickdao.h2.entity;
+
+import cn.schoolwow.quickdao.annotation.*;
+
+import java.math.BigDecimal;
+
+@Comment("优惠券")
+public class Coupon {
+    @Id(strategy = IdStrategy.AutoIncrement)
+    private long id;
+
+    @Comment("面额")
+    @Constraint(notNull = true,unique = true)
+    private BigDecimal amount;
+
+    @Comment("名称")
+    private String name;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -11,6 +11,17 @@ public class DownloadTask {
     /**文件备注*/
     private String remark;
 
+    /**下载状态*/
+    private Status status;
+
+    /**文件摘要*/
+    private byte[] digest;
+
+    /**下载状态*/
+    public enum Status {
+        WAITING,DOWNLOADING,FINISHED
+    }
+
     public String getFilePath() {
         return filePath;
     }
@@ -34,4 +45,20 @@ public class DownloadTask {
     public void setRemark(String remark) {
         this.remark = remark;
     }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public byte[] getDigest() {
+        return digest;
+    }
+
+    public void setDigest(byte[] digest) {
+        this.digest = digest;
+    }
 }
@@ -3,6 +3,7 @@ package cn.schoolwow.quickdao.h2.entity;
 import cn.schoolwow.quickdao.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Comment("人")
 public class Person extends PersonDetail {
@@ -25,6 +26,9 @@ public class Person extends PersonDetail {
     /**关联订单*/
     private Order order;
 
+    /**订单列表*/
+    private List<Order> orderList;
+
     public long getId() {
         return id;
     }
@@ -49,6 +53,14 @@ public class Person extends PersonDetail {
         this.order = order;
     }
 
+    public List<Order> getOrderList() {
+        return orderList;
+    }
+
+    public void setOrderList(List<Order> orderList) {
+        this.orderList = orderList;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
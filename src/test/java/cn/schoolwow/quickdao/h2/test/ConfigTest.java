@@ -3,9 +3,14 @@ package cn.schoolwow.quickdao.h2.test;
 import cn.schoolwow.quickdao.QuickDAO;
 import cn.schoolwow.quickdao.annotation.IdStrategy;
 import cn.schoolwow.quickdao.dao.DAO;
+import cn.schoolwow.quickdao.dao.buffer.WriteBehindBuffer;
 import cn.schoolwow.quickdao.domain.Entity;
 import cn.schoolwow.quickdao.domain.Property;
 import cn.schoolwow.quickdao.domain.QuickDAOConfig;
+import cn.schoolwow.quickdao.domain.generator.IdSegment;
+import cn.schoolwow.quickdao.domain.generator.SegmentIdGenerator;
+import cn.schoolwow.quickdao.domain.generator.SnowflakeIdGenerator;
+import cn.schoolwow.quickdao.exception.SQLRuntimeException;
 import cn.schoolwow.quickdao.h2.H2Test;
 import cn.schoolwow.quickdao.h2.entity.DownloadTask;
 import cn.schoolwow.quickdao.h2.entity.Order;
@@ -13,6 +18,14 @@ import cn.schoolwow.quickdao.h2.entity.Person;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
 /**配置项测试*/
 public class ConfigTest extends H2Test {
     /**
@@ -134,4 +147,355 @@ public class ConfigTest extends H2Test {
             Assert.assertNotNull(downloadTask);
         }
     }
+
+    /**
+     * 测试类型转换器
+     * */
+    @Test
+    public void typeCodec(){
+        DAO dao = QuickDAO.newInstance()
+                .dataSource(dataSource)
+                .entity(DownloadTask.class)
+                .build();
+        dao.rebuild(DownloadTask.class);
+        {
+            DownloadTask downloadTask = new DownloadTask();
+            downloadTask.setFilePath("c:/quickdao.jar");
+            downloadTask.setFileSize(10000);
+            downloadTask.setStatus(DownloadTask.Status.FINISHED);
+            downloadTask.setDigest(new byte[]{1,2,3});
+            int effect = dao.insert(downloadTask);
+            Assert.assertEquals(1,effect);
+        }
+        {
+            DownloadTask downloadTask = dao.fetch(DownloadTask.class,"filePath","c:/quickdao.jar");
+            Assert.assertEquals(DownloadTask.Status.FINISHED,downloadTask.getStatus());
+            Assert.assertArrayEquals(new byte[]{1,2,3},downloadTask.getDigest());
+            Assert.assertNull(downloadTask.getRemark());
+        }
+        {
+            long count = dao.query(DownloadTask.class)
+                    .addQuery("status",DownloadTask.Status.FINISHED)
+                    .execute()
+                    .count();
+            Assert.assertEquals(1,count);
+        }
+        {
+            //存在类型转换器的类型仍然遵循用户的忽略配置
+            DAO ignoreDAO = QuickDAO.newInstance()
+                    .dataSource(dataSource)
+                    .entity(DownloadTask.class)
+                    .ignoreClass(DownloadTask.Status.class)
+                    .autoCreateTable(false)
+                    .build();
+            Entity entity = ignoreDAO.getQuickDAOConfig().getEntityByClassName(DownloadTask.class.getName());
+            Assert.assertNull(entity.getPropertyByFieldName("status"));
+            Assert.assertNotNull(entity.getPropertyByFieldName("digest"));
+        }
+        {
+            //无唯一性约束又无id时无法批量更新
+            DownloadTask downloadTask = dao.fetch(DownloadTask.class,"filePath","c:/quickdao.jar");
+            try {
+                dao.update(new Object[]{downloadTask});
+                Assert.fail();
+            }catch (IllegalArgumentException e){
+            }
+        }
+    }
+
+    /**
+     * 测试分批插入
+     * */
+    @Test
+    public void batchSize(){
+        DAO dao = QuickDAO.newInstance()
+                .dataSource(dataSource)
+                .entity(Person.class)
+                .batchSize(2)
+                .build();
+        dao.rebuild(Person.class);
+        Person[] persons = new Person[5];
+        for(int i=0;i<persons.length;i++){
+            persons[i] = new Person();
+            persons[i].setPassword("123456");
+            persons[i].setFirstName("Bill");
+            persons[i].setLastName("Gates" + i);
+            persons[i].setAddress("Xuanwumen 10");
+            persons[i].setCity("Beijing");
+        }
+        int effect = dao.insert(persons);
+        Assert.assertEquals(5, effect);
+        for(int i=0;i<persons.length;i++){
+            Person person = dao.fetch(Person.class, persons[i].getId());
+            Assert.assertEquals("Gates" + i, person.getLastName());
+        }
+        //多行values插入
+        {
+            dao.clear(Person.class);
+            for(Person person:persons){
+                person.setId(0);
+            }
+            effect = dao.insertMultiValues(Arrays.asList(persons));
+            Assert.assertEquals(5, effect);
+            for(int i=0;i<persons.length;i++){
+                Person person = dao.fetch(Person.class, persons[i].getId());
+                Assert.assertEquals("Gates" + i, person.getLastName());
+            }
+        }
+    }
+
+    /**
+     * 测试SQL日志
+     * */
+    @Test
+    public void sqlLog(){
+        DAO dao = QuickDAO.newInstance()
+                .dataSource(dataSource)
+                .entity(Person.class)
+                .maxLogBatchCount(2)
+                .build();
+        List<String> sqlList = new ArrayList<>();
+        dao.getQuickDAOConfig().interceptorList.add((name, sql) -> sqlList.add(sql));
+        dao.rebuild(Person.class);
+        Person[] persons = new Person[3];
+        for(int i=0;i<persons.length;i++){
+            persons[i] = new Person();
+            persons[i].setPassword("123456");
+            persons[i].setFirstName("Bill");
+            persons[i].setLastName("Gates" + i);
+            persons[i].setAddress("Xuanwumen 10");
+            persons[i].setCity("Beijing");
+        }
+        {
+            sqlList.clear();
+            dao.insert(persons[0]);
+            Assert.assertTrue(sqlList.get(0).contains("'Gates0'"));
+            Assert.assertFalse(sqlList.get(0).contains("?"));
+        }
+        {
+            sqlList.clear();
+            dao.insertBatch(new Person[]{persons[1],persons[2],persons[0]});
+            String sql = sqlList.get(0);
+            Assert.assertTrue(sql.contains("'Gates1'"));
+            Assert.assertTrue(sql.contains("'Gates2'"));
+            Assert.assertFalse(sql.contains("'Gates0'"));
+            Assert.assertTrue(sql.endsWith("...共3条"));
+        }
+        {
+            sqlList.clear();
+            dao.fetch(Person.class,"lastName","Gates1");
+            Assert.assertTrue(sqlList.get(0).contains("'Gates1'"));
+        }
+    }
+
+    /**
+     * 测试变更跟踪
+     * */
+    @Test
+    public void dirtyTracking(){
+        DAO dao = QuickDAO.newInstance()
+                .dataSource(dataSource)
+                .entity(Person.class)
+                .dirtyTracking(true)
+                .build();
+        List<String> sqlList = new ArrayList<>();
+        dao.getQuickDAOConfig().interceptorList.add((name, sql) -> sqlList.add(sql));
+        dao.rebuild(Person.class);
+        Person[] persons = new Person[3];
+        for(int i=0;i<persons.length;i++){
+            persons[i] = new Person();
+            persons[i].setPassword("123456");
+            persons[i].setFirstName("Bill");
+            persons[i].setLastName("Gates" + i);
+            persons[i].setAddress("Xuanwumen 10");
+            persons[i].setCity("Beijing");
+        }
+        dao.insert(persons);
+        //只更新变更字段
+        {
+            Person person = dao.fetch(Person.class,"lastName","Gates0");
+            Assert.assertEquals(0, dao.update(person));
+            person.setCity("ShangHai");
+            sqlList.clear();
+            Assert.assertEquals(1, dao.update(person));
+            Assert.assertTrue(sqlList.get(0).contains("'ShangHai'"));
+            Assert.assertFalse(sqlList.get(0).contains("'Xuanwumen 10'"));
+            Assert.assertEquals("ShangHai", dao.fetch(Person.class,"lastName","Gates0").getCity());
+        }
+        //变更字段相同的实例分组批量更新
+        {
+            List<Person> personList = dao.fetchList(Person.class,"password","123456");
+            Assert.assertEquals(3, personList.size());
+            personList.get(0).setAddress("Oxford Street");
+            personList.get(1).setAddress("Baker Street");
+            personList.get(2).setFirstName("William");
+            Assert.assertEquals(3, dao.update(personList));
+            Assert.assertEquals("William", dao.fetch(Person.class,"lastName",personList.get(2).getLastName()).getFirstName());
+            Assert.assertEquals("Baker Street", dao.fetch(Person.class,"lastName",personList.get(1).getLastName()).getAddress());
+        }
+    }
+
+    /**
+     * 测试流式批量导入
+     * */
+    @Test
+    public void bulkLoader(){
+        DAO dao = QuickDAO.newInstance()
+                .dataSource(dataSource)
+                .entity(Person.class)
+                .build();
+        dao.rebuild(Person.class);
+        List<Long> progressList = new ArrayList<>();
+        long rows = dao.bulkLoader(Person.class)
+                .batchSize(5)
+                .commitInterval(10)
+                .dropIndex(true)
+                .analyze(true)
+                .listener((count, elapsed, rowsPerSecond) -> progressList.add(count))
+                .load(IntStream.range(0, 25).mapToObj(i -> {
+                    Person person = new Person();
+                    person.setPassword("123456");
+                    person.setFirstName("Bill");
+                    person.setLastName("Gates" + i);
+                    person.setAddress("Xuanwumen 10");
+                    person.setCity("Beijing");
+                    return person;
+                }));
+        Assert.assertEquals(25, rows);
+        Assert.assertEquals(Arrays.asList(10L, 20L, 25L), progressList);
+        Assert.assertEquals(25, dao.query(Person.class).execute().count());
+        Assert.assertEquals("Bill", dao.fetch(Person.class, "lastName", "Gates24").getFirstName());
+        //导入失败时回滚未提交的批次并抛出原始异常
+        try {
+            dao.bulkLoader(Person.class)
+                    .batchSize(5)
+                    .dropIndex(true)
+                    .load(IntStream.range(20, 30).mapToObj(i -> {
+                        Person person = new Person();
+                        person.setPassword("123456");
+                        person.setLastName("Gates" + i);
+                        return person;
+                    }));
+            Assert.fail();
+        }catch (SQLRuntimeException e){
+            Assert.assertEquals(25, dao.query(Person.class).execute().count());
+        }
+    }
+
+    /**
+     * 测试异步写缓冲
+     * */
+    @Test
+    public void writeBehindBuffer(){
+        DAO dao = QuickDAO.newInstance()
+                .dataSource(dataSource)
+                .entity(Person.class)
+                .writeBehind(100, 10, 60000)
+                .build();
+        dao.rebuild(Person.class);
+        List<Person> failureList = new ArrayList<>();
+        WriteBehindBuffer<Person> buffer = dao.writeBehindBuffer(Person.class)
+                .failureHandler((operation, instances, e) -> failureList.addAll(instances));
+        Assert.assertSame(buffer, dao.writeBehindBuffer(Person.class));
+        for(int i=0;i<3;i++){
+            Person person = new Person();
+            person.setPassword("123456");
+            person.setFirstName("Bill");
+            person.setLastName("Gates" + i);
+            person.setAddress("Xuanwumen 10");
+            person.setCity("Beijing");
+            buffer.insert(person);
+        }
+        Assert.assertEquals(3, buffer.size());
+        buffer.flush();
+        Assert.assertEquals(0, buffer.size());
+        Assert.assertEquals(3, dao.query(Person.class).execute().count());
+        //同一记录的多次更新合并为一次
+        for(String city:new String[]{"ShangHai","TianJin"}){
+            Person person = dao.fetch(Person.class,"lastName","Gates0");
+            person.setCity(city);
+            buffer.update(person);
+        }
+        Assert.assertEquals(1, buffer.size());
+        //写入失败时调用回调
+        Person duplicate = new Person();
+        duplicate.setPassword("123456");
+        duplicate.setLastName("Gates1");
+        buffer.insert(duplicate);
+        buffer.close();
+        Assert.assertEquals("TianJin", dao.fetch(Person.class,"lastName","Gates0").getCity());
+        Assert.assertEquals(1, failureList.size());
+        Assert.assertNotSame(buffer, dao.writeBehindBuffer(Person.class));
+        //按调用顺序写入,后执行的插入或更新覆盖先执行的更新
+        {
+            WriteBehindBuffer<Person> orderedBuffer = dao.writeBehindBuffer(Person.class);
+            Person person = dao.fetch(Person.class,"lastName","Gates2");
+            person.setCity("ShangHai");
+            orderedBuffer.update(person);
+            Person upsertPerson = dao.fetch(Person.class,"lastName","Gates2");
+            upsertPerson.setCity("TianJin");
+            orderedBuffer.upsert(upsertPerson);
+            Assert.assertEquals(2, orderedBuffer.size());
+            orderedBuffer.close();
+            Assert.assertEquals("TianJin", dao.fetch(Person.class,"lastName","Gates2").getCity());
+        }
+    }
+
+    /**
+     * 测试雪花算法id生成器
+     * */
+    @Test
+    public void snowflakeIdGenerator() throws InterruptedException {
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(3, 5);
+        Set<Long> idSet = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for(int i=0;i<threads.length;i++){
+            threads[i] = new Thread(()->{
+                for(int j=0;j<10000;j++){
+                    idSet.add(idGenerator.getNextId());
+                }
+            });
+            threads[i].start();
+        }
+        for(Thread thread:threads){
+            thread.join();
+        }
+        Assert.assertEquals(80000, idSet.size());
+        //机器id和数据中心id位于序列号之上
+        long id = idGenerator.getNextId();
+        Assert.assertEquals(3, (id >> 12) & 31);
+        Assert.assertEquals(5, (id >> 17) & 31);
+        Assert.assertTrue(idGenerator.getNextId() > id);
+        //js最大支持53位整型
+        Assert.assertTrue(new SnowflakeIdGenerator().getNextId() < (1L << 53));
+    }
+
+    /**
+     * 测试号段id生成器
+     * */
+    @Test
+    public void segmentIdGenerator(){
+        SegmentIdGenerator idGenerator = new SegmentIdGenerator("test", 10);
+        DAO dao = QuickDAO.newInstance()
+                .dataSource(dataSource)
+                .entity(Person.class)
+                .idGenerator(idGenerator)
+                .build();
+        dao.rebuild(IdSegment.class);
+        Set<Long> idSet = new HashSet<>();
+        //号段内id连续分配
+        for(int i=1;i<=25;i++){
+            long id = idGenerator.getNextId();
+            Assert.assertEquals(i, id);
+            idSet.add(id);
+        }
+        Assert.assertTrue(dao.fetch(IdSegment.class,"name","test").getMaxId()>=30);
+        //共用号段名称的生成器分配的号段互不重叠
+        SegmentIdGenerator otherIdGenerator = new SegmentIdGenerator("test", 10);
+        otherIdGenerator.init(dao.getQuickDAOConfig());
+        for(int i=0;i<30;i++){
+            Assert.assertTrue(idSet.add(idGenerator.getNextId()));
+            Assert.assertTrue(idSet.add(otherIdGenerator.getNextId()));
+        }
+    }
 }
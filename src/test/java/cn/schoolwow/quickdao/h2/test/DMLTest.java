@@ -1,12 +1,18 @@
 package cn.schoolwow.quickdao.h2.test;
 
 import cn.schoolwow.quickdao.domain.Property;
+import cn.schoolwow.quickdao.exception.SQLRuntimeException;
 import cn.schoolwow.quickdao.h2.H2Test;
+import cn.schoolwow.quickdao.h2.entity.Coupon;
 import cn.schoolwow.quickdao.h2.entity.Order;
 import cn.schoolwow.quickdao.h2.entity.Person;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -25,6 +31,7 @@ public class DMLTest extends H2Test {
         insert();
         update();
         save();
+        upsert();
         delete();
         alterColumn();
     }
@@ -159,6 +166,18 @@ public class DMLTest extends H2Test {
                 }
             }
         }
+        //分批更新
+        {
+            List<Integer> chunkRowList = new ArrayList<>();
+            long effect = dao.query(Order.class)
+                    .addBetweenQuery("orderNo",2,7)
+                    .addUpdate("personId",20)
+                    .execute()
+                    .updateInChunks(2,0,(chunkRows,totalRows)->chunkRowList.add(chunkRows));
+            Assert.assertEquals(5, effect);
+            Assert.assertEquals(Arrays.asList(2,2,1), chunkRowList);
+            Assert.assertEquals(5, dao.query(Order.class).addQuery("personId",20).execute().count());
+        }
     }
 
     private void save() {
@@ -197,6 +216,83 @@ public class DMLTest extends H2Test {
             order = dao.fetch(Order.class,"orderNo",1);
             Assert.assertEquals(10, order.getPersonId());
         }
+        //批量新增和更新记录
+        {
+            long count = dao.query(Person.class).execute().count();
+            Person[] persons = new Person[2];
+            persons[0] = dao.fetch(Person.class,"lastName","Adams");
+            persons[0].setCity("ShangHai");
+            persons[1] = new Person();
+            persons[1].setPassword("123456");
+            persons[1].setFirstName("James");
+            persons[1].setLastName("Monroe");
+            persons[1].setAddress("Baker Street");
+            persons[1].setCity("London");
+            int effect = dao.save(persons);
+            Assert.assertEquals(2, effect);
+            Assert.assertEquals(count+1,dao.query(Person.class).execute().count());
+            Assert.assertEquals("ShangHai",dao.fetch(Person.class,"lastName","Adams").getCity());
+        }
+        //批量新增和更新记录(唯一性约束字段为decimal类型,数据库中的值与实例值精度不同)
+        {
+            dao.rebuild(Coupon.class);
+            Coupon coupon = new Coupon();
+            coupon.setAmount(new BigDecimal("1.5"));
+            coupon.setName("满减");
+            dao.insert(coupon);
+            Coupon[] coupons = new Coupon[2];
+            coupons[0] = dao.fetch(Coupon.class,"id",coupon.getId());
+            Assert.assertEquals(new BigDecimal("1.5000"), coupons[0].getAmount());
+            coupons[0].setAmount(new BigDecimal("1.50"));
+            coupons[0].setName("满减券");
+            coupons[1] = new Coupon();
+            coupons[1].setAmount(new BigDecimal("2"));
+            coupons[1].setName("折扣券");
+            Assert.assertTrue(dao.exist(coupons[0]));
+            Assert.assertTrue(dao.existAll(coupons[0]));
+            int effect = dao.save(coupons);
+            Assert.assertEquals(2, effect);
+            Assert.assertEquals(2, dao.query(Coupon.class).execute().count());
+            Assert.assertEquals("满减券", dao.fetch(Coupon.class,"id",coupon.getId()).getName());
+        }
+    }
+
+    private void upsert() {
+        //已存在记录更新,不存在记录插入
+        {
+            long count = dao.query(Person.class).execute().count();
+            LocalDateTime createdAt = dao.fetch(Person.class,"lastName","Adams").getCreatedAt();
+            Assert.assertNotNull(createdAt);
+            Person[] persons = new Person[2];
+            for(int i=0;i<persons.length;i++){
+                persons[i] = new Person();
+                persons[i].setPassword("123456");
+                persons[i].setFirstName("Thomas");
+                persons[i].setAddress("Monticello");
+                persons[i].setCity("Virginia");
+            }
+            persons[0].setLastName("Adams");
+            persons[1].setLastName("Jefferson");
+            dao.upsert(persons);
+            Assert.assertEquals(count+1,dao.query(Person.class).execute().count());
+            Assert.assertEquals("Virginia",dao.fetch(Person.class,"lastName","Adams").getCity());
+            //更新时不修改创建时间
+            Assert.assertEquals(createdAt,dao.fetch(Person.class,"lastName","Adams").getCreatedAt());
+            Assert.assertEquals("Monticello",dao.fetch(Person.class,"lastName","Jefferson").getAddress());
+        }
+        //已存在记录忽略
+        {
+            long count = dao.query(Person.class).execute().count();
+            Person person = new Person();
+            person.setPassword("123456");
+            person.setFirstName("Thomas");
+            person.setLastName("Jefferson");
+            person.setAddress("White House");
+            person.setCity("Washington");
+            Assert.assertEquals(0, dao.insertIgnore(person));
+            Assert.assertEquals(count,dao.query(Person.class).execute().count());
+            Assert.assertEquals("Monticello",dao.fetch(Person.class,"lastName","Jefferson").getAddress());
+        }
     }
 
     private void delete() {
@@ -221,6 +317,48 @@ public class DMLTest extends H2Test {
             Assert.assertEquals(5,effect);
             Assert.assertEquals(count-5,dao.query(Order.class).execute().count());
         }
+        {
+            long count = dao.query(Order.class).execute().count();
+            long effect = dao.query(Order.class).execute().deleteInChunks(1);
+            Assert.assertEquals(count,effect);
+            Assert.assertEquals(0,dao.query(Order.class).execute().count());
+        }
+        {
+            Order order = new Order();
+            order.setId(UUID.randomUUID().toString());
+            order.setPersonId(1);
+            order.setOrderNo(1);
+            dao.insert(order);
+            dao.truncate(Order.class);
+            Assert.assertEquals(0,dao.query(Order.class).execute().count());
+        }
+        {
+            //任一批次失败时回滚已执行的批次
+            long count = dao.query(Person.class).execute().count();
+            List<Object> values = new ArrayList<>();
+            for(long i=1;i<=1000;i++){
+                values.add(i);
+            }
+            values.add("NotNumber");
+            try {
+                dao.delete(Person.class,"id",values);
+                Assert.fail();
+            }catch (SQLRuntimeException e){
+                Assert.assertEquals(count,dao.query(Person.class).execute().count());
+            }
+        }
+        {
+            //id列表超过单条语句参数上限时分批删除
+            long count = dao.query(Person.class).execute().count();
+            long[] ids = new long[2500];
+            for(int i=0;i<ids.length;i++){
+                ids[i] = i+1;
+            }
+            int effect = dao.deleteByIds(Person.class,ids);
+            Assert.assertEquals(count,effect);
+            Assert.assertEquals(0,dao.query(Person.class).execute().count());
+            Assert.assertEquals(0,dao.delete(Person.class,"lastName",Arrays.asList("Gates","Jefferson")));
+        }
     }
 
     private void alterColumn(){
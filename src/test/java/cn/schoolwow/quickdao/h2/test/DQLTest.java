@@ -1,19 +1,27 @@
 package cn.schoolwow.quickdao.h2.test;
 
 import cn.schoolwow.quickdao.domain.PageVo;
+import cn.schoolwow.quickdao.domain.PagingMode;
 import cn.schoolwow.quickdao.h2.H2Test;
 import cn.schoolwow.quickdao.h2.entity.Order;
 import cn.schoolwow.quickdao.h2.entity.Person;
 import cn.schoolwow.quickdao.query.condition.Condition;
 import cn.schoolwow.quickdao.query.response.Response;
+import cn.schoolwow.quickdao.query.response.ResponseCursor;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 public class DQLTest extends H2Test {
 
@@ -26,6 +34,7 @@ public class DQLTest extends H2Test {
         {
             Person person = dao.fetch(Person.class,1);
             Assert.assertEquals("Gates",person.getLastName());
+            Assert.assertNotNull(person.getCreatedAt());
             Assert.assertTrue(dao.exist(person));
         }
         {
@@ -37,6 +46,25 @@ public class DQLTest extends H2Test {
             List<Person> personList = dao.fetchList(Person.class,"password","123456");
             Assert.assertEquals(3,personList.size());
             Assert.assertTrue(dao.existAll(personList));
+            Person person = new Person();
+            person.setLastName("NotExist");
+            personList.add(person);
+            Assert.assertFalse(dao.existAll(personList));
+            Assert.assertTrue(dao.existAny(personList));
+            Assert.assertFalse(dao.existAny(person));
+        }
+        {
+            //超出单条语句参数个数时分段查询
+            List<Long> ids = new ArrayList<>();
+            for(long i=1;i<=2500;i++){
+                ids.add(i);
+            }
+            List<Person> personList = dao.fetchList(Person.class,"id",ids);
+            Assert.assertEquals(3,personList.size());
+            Map<Long,Person> personMap = dao.fetchMap(Person.class,Arrays.asList(1L,2L,100L));
+            Assert.assertEquals(2,personMap.size());
+            Assert.assertEquals("Gates",personMap.get(1L).getLastName());
+            Assert.assertFalse(personMap.containsKey(100L));
         }
     }
 
@@ -105,6 +133,151 @@ public class DQLTest extends H2Test {
             Assert.assertEquals(3,personPageVo.getTotalSize());
             Assert.assertEquals(3,personPageVo.getList().size());
         }
+        for(PagingMode pagingMode:PagingMode.values()){
+            PageVo<Person> personPageVo = dao.query(Person.class)
+                    .page(1,2)
+                    .pagingMode(pagingMode)
+                    .execute()
+                    .getPagingList();
+            Assert.assertEquals(2,personPageVo.getTotalPage());
+            Assert.assertEquals(3,personPageVo.getTotalSize());
+            Assert.assertEquals(2,personPageVo.getList().size());
+            Assert.assertTrue(personPageVo.isHasMore());
+        }
+        {
+            List<Person> personList = dao.query(Person.class)
+                    .preCount()
+                    .limit(0,2)
+                    .execute()
+                    .getList();
+            Assert.assertEquals(2,personList.size());
+        }
+    }
+
+    @Test
+    public void singleColumnArray(){
+        {
+            long[] ids = dao.query(Person.class)
+                    .addInQuery("id",new long[]{1,2})
+                    .addColumn("id")
+                    .orderBy("id")
+                    .execute()
+                    .getLongArray();
+            Assert.assertArrayEquals(new long[]{1,2},ids);
+        }
+        {
+            String[] lastNames = dao.query(Person.class)
+                    .addNotInQuery("id",new long[]{1})
+                    .addColumn("lastName")
+                    .execute()
+                    .getStringArray();
+            Assert.assertEquals(2,lastNames.length);
+        }
+    }
+
+    @Test
+    public void cursor(){
+        {
+            List<Person> personList = new ArrayList<>();
+            dao.query(Person.class)
+                    .fetchSize(1)
+                    .execute()
+                    .forEach(person -> personList.add((Person) person));
+            Assert.assertEquals(3,personList.size());
+        }
+        {
+            try (Stream<Person> stream = dao.query(Person.class).orderByDesc("lastName").execute().stream()){
+                Assert.assertEquals("Wilson",stream.findFirst().get().getLastName());
+            }
+        }
+        {
+            try (ResponseCursor<JSONObject> cursor = dao.query("PERSON").execute().iterator(JSONObject.class)){
+                int count = 0;
+                while(cursor.hasNext()){
+                    Assert.assertNotNull(cursor.next());
+                    count++;
+                }
+                Assert.assertEquals(3,count);
+            }
+        }
+        {
+            Set<Long> idSet = ConcurrentHashMap.newKeySet();
+            long count = dao.query(Person.class)
+                    .addQuery("password","123456")
+                    .execute()
+                    .parallelScan("id",2,person -> idSet.add(((Person) person).getId()));
+            Assert.assertEquals(3,count);
+            Assert.assertEquals(3,idSet.size());
+        }
+        {
+            //任一分区失败时抛出该分区的异常
+            try {
+                dao.query(Person.class)
+                        .execute()
+                        .parallelScan("id",3,person -> {
+                            throw new IllegalStateException("scan failed");
+                        });
+                Assert.fail();
+            }catch (IllegalStateException e){
+                Assert.assertEquals("scan failed",e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void seek(){
+        {
+            PageVo<Person> personPageVo = dao.query(Person.class)
+                    .seek(2,"id")
+                    .execute()
+                    .getPagingList();
+            Assert.assertEquals(2,personPageVo.getList().size());
+            Assert.assertNotNull(personPageVo.getCursor());
+            PageVo<Person> nextPageVo = dao.query(Person.class)
+                    .seek(2,"id")
+                    .execute()
+                    .nextPage(personPageVo.getCursor());
+            Assert.assertEquals(1,nextPageVo.getList().size());
+            Assert.assertNull(nextPageVo.getCursor());
+        }
+        {
+            List<Person> personList = new ArrayList<>();
+            List<PageVo> pageVoList = new ArrayList<>();
+            dao.query(Person.class)
+                    .seek(1,"lastName","id")
+                    .execute()
+                    .forEachPage(pageVo -> {
+                        pageVoList.add((PageVo) pageVo);
+                        personList.addAll(((PageVo<Person>) pageVo).getList());
+                    });
+            Assert.assertEquals(3,personList.size());
+            //最后一页有数据时不会额外查询一个空页
+            Assert.assertEquals(3,pageVoList.size());
+            Assert.assertFalse(pageVoList.get(2).isHasMore());
+        }
+        {
+            List<Person> personList = dao.query(Person.class)
+                    .seek(10,"id")
+                    .seekAfter(1)
+                    .execute()
+                    .getList();
+            Assert.assertEquals(2,personList.size());
+        }
+        {
+            //一对多关联查询不支持keyset分页
+            try {
+                dao.query(Person.class)
+                        .joinTable(Order.class,"id","personId","orderList")
+                        .leftJoin()
+                        .done()
+                        .compositField()
+                        .seek(2,"id")
+                        .execute()
+                        .getPagingList();
+                Assert.fail();
+            }catch (IllegalArgumentException e){
+            }
+        }
     }
 
     @Test
@@ -120,6 +293,20 @@ public class DQLTest extends H2Test {
             Assert.assertEquals(1,personList.size());
             Assert.assertNotNull(personList.get(0).getOrder());
         }
+        {
+            List<Person> personList = dao.query(Person.class)
+                    .joinTable(Order.class,"id","personId","orderList")
+                    .leftJoin()
+                    .done()
+                    .compositField()
+                    .orderBy("id")
+                    .execute()
+                    .getList();
+            Assert.assertEquals(dao.query(Person.class).execute().count(),personList.size());
+            Assert.assertEquals(1,personList.get(0).getOrderList().size());
+            Assert.assertEquals(1,personList.get(0).getOrderList().get(0).getPersonId());
+            Assert.assertNull(personList.get(1).getOrderList());
+        }
         {
             Condition joinCondition = dao.query(Person.class)
                     .addQuery("last_name","Gates")
@@ -3,6 +3,7 @@ package cn.schoolwow.quickdao.h2.test;
 import cn.schoolwow.quickdao.h2.H2Test;
 import cn.schoolwow.quickdao.h2.entity.Person;
 import cn.schoolwow.quickdao.transaction.Transaction;
+import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import org.junit.Assert;
 import org.junit.Before;
@@ -100,6 +101,35 @@ public class TransactionTest extends H2Test {
             JSONObject person = dao.fetch("PERSON","last_name","Gates");
             Assert.assertNull(person);
         }
+        {
+            //Condition事务批量插入,事务中不提交
+            JSONArray array = new JSONArray();
+            for(int i=0;i<3;i++){
+                JSONObject person = new JSONObject();
+                person.put("PASSWORD","123456");
+                person.put("LAST_NAME","Adams"+i);
+                array.add(person);
+            }
+            int effect = transaction.query("PERSON")
+                    .addInsert(array)
+                    .execute()
+                    .insert();
+            Assert.assertEquals(3,effect);
+            transaction.rollback();
+            Assert.assertEquals(0,dao.query("PERSON").execute().count());
+        }
+        {
+            //批量更新不提交事务
+            Person person = new Person();
+            person.setPassword("123456");
+            person.setLastName("Carter");
+            person.setAddress("Changan Street");
+            dao.insert(person);
+            person.setAddress("Xuanwumen 10");
+            Assert.assertEquals(1,transaction.update(new Object[]{person}));
+            transaction.rollback();
+            Assert.assertEquals("Changan Street",dao.fetch(Person.class,"lastName","Carter").getAddress());
+        }
         transaction.endTransaction();
     }
 }
@@ -77,6 +77,10 @@ public class VirtualTest extends H2Test {
                 JSONObject person = array.getJSONObject(i);
                 Assert.assertTrue(person.containsKey("generatedKeys"));
                 Assert.assertTrue(person.getIntValue("generatedKeys")>0);
+                //批量执行时自增id按插入顺序回写
+                if(i>0){
+                    Assert.assertTrue(person.getLongValue("generatedKeys")>array.getJSONObject(i-1).getLongValue("generatedKeys"));
+                }
             }
         }
         {